@@ -0,0 +1,113 @@
+package com.example.jwttutorial.config;
+
+import com.example.jwttutorial.jwt.RouteTable;
+import com.example.jwttutorial.jwt.TokenProvider;
+import com.example.jwttutorial.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+
+/**
+ * 빠른 기동 모드 (spring.profiles.active=faststart) 설정
+ * application-faststart.yml 에서 lazy-initialization 을 켜고, 요청 hot path 에 있는 빈만 eager 로 생성한다.
+ * readiness 신호(ApplicationReadyEvent) 전에 실행되는 ApplicationRunner 에서 Token 검증과 BCrypt 를 미리 실행해서
+ * 첫 요청이 cold JIT / 지연 초기화 비용을 떠안지 않도록 한다.
+ */
+@Configuration
+@Profile("faststart")
+public class FastStartupConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(FastStartupConfig.class);
+
+    /** lazy-initialization 에서 제외할 빈, 첫 요청에서 바로 사용되는 것들 */
+    @Bean
+    public static LazyInitializationExcludeFilter hotPathLazyInitializationExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                TokenProvider.class, PasswordEncoder.class, RouteTable.class, UserDetailsService.class);
+    }
+
+    /** 첫 성공 요청까지의 시간을 startup.first.successful.request Timer 로 기록 */
+    @Bean
+    public FirstSuccessfulRequestRecorder firstSuccessfulRequestRecorder(MeterRegistry meterRegistry) {
+        return new FirstSuccessfulRequestRecorder(meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<FirstSuccessfulRequestFilter> firstSuccessfulRequestFilter(
+            FirstSuccessfulRequestRecorder recorder) {
+        FilterRegistrationBean<FirstSuccessfulRequestFilter> registration =
+                new FilterRegistrationBean<>(new FirstSuccessfulRequestFilter(recorder));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public FirstSuccessfulRequestWebFilter firstSuccessfulRequestWebFilter(FirstSuccessfulRequestRecorder recorder) {
+        return new FirstSuccessfulRequestWebFilter(recorder);
+    }
+
+    @Bean
+    public ApplicationRunner warmUp(
+            TokenProvider tokenProvider,
+            PasswordEncoder passwordEncoder,
+            UserRepository userRepository,
+            ConfigurableApplicationContext context,
+            @Value("${startup.warm-up.token-iterations:2000}") int tokenIterations,
+            @Value("${startup.warm-up.password-iterations:3}") int passwordIterations,
+            @Value("${startup.exit-after-warm-up:false}") boolean exitAfterWarmUp) {
+        return args -> {
+            long start = System.currentTimeMillis();
+
+            /** Token 생성 -> 검증 -> Authentication 변환 (JwtFilter 의 hot path) */
+            Authentication authentication = new UsernamePasswordAuthenticationToken("warm-up", null,
+                    Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")));
+            String jwt = tokenProvider.createToken(authentication);
+            for (int i = 0; i < tokenIterations; i++) {
+                Claims claims = tokenProvider.parseClaims(jwt);
+                if (claims != null) {
+                    tokenProvider.getAuthentication(claims, jwt);
+                }
+            }
+
+            /** 로그인시 사용하는 BCrypt 인코딩/검증 */
+            String encoded = passwordEncoder.encode("warm-up");
+            for (int i = 0; i < passwordIterations; i++) {
+                passwordEncoder.matches("warm-up", encoded);
+            }
+
+            /** 지연된 JPA 초기화를 끝내고 로그인 / 조회 쿼리 한번씩 실행 */
+            userRepository.findCredentialsByUsername("warm-up");
+            userRepository.findProjectionsByUsername("warm-up");
+
+            long now = System.currentTimeMillis();
+            logger.info("warm-up 완료: {} ms (JVM 시작 후 {} ms)",
+                    now - start, now - ManagementFactory.getRuntimeMXBean().getStartTime());
+
+            if (exitAfterWarmUp) {
+                System.exit(SpringApplication.exit(context));
+            }
+        };
+    }
+}
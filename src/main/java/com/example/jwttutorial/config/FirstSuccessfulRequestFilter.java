@@ -0,0 +1,32 @@
+package com.example.jwttutorial.config;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * servlet 모드에서 처음으로 성공한 요청까지 걸린 시간을 FirstSuccessfulRequestRecorder 로 기록하는 필터
+ * faststart 프로필에서 FastStartupConfig 가 등록한다.
+ */
+public class FirstSuccessfulRequestFilter extends OncePerRequestFilter {
+
+    private final FirstSuccessfulRequestRecorder recorder;
+
+    public FirstSuccessfulRequestFilter(FirstSuccessfulRequestRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        filterChain.doFilter(request, response);
+
+        if (!recorder.isRecorded()) {
+            recorder.record(response.getStatus(), request.getRequestURI());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.jwttutorial.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * JVM 시작부터 처음으로 성공한(4xx, 5xx 가 아닌) 요청이 끝날때까지 걸린 시간을 한번만 기록
+ * startup.first.successful.request Timer 로 남기므로 /actuator/metrics 에서 확인할 수 있다.
+ * servlet 모드는 FirstSuccessfulRequestFilter, reactive 모드는 FirstSuccessfulRequestWebFilter 가 호출한다.
+ */
+public class FirstSuccessfulRequestRecorder {
+
+    public static final String METRIC_NAME = "startup.first.successful.request";
+
+    private static final Logger logger = LoggerFactory.getLogger(FirstSuccessfulRequestRecorder.class);
+
+    private final AtomicBoolean recorded = new AtomicBoolean();
+    private final Timer timer;
+
+    public FirstSuccessfulRequestRecorder(MeterRegistry registry) {
+        this.timer = Timer.builder(METRIC_NAME)
+                .description("Time from JVM start to the end of the first successful request")
+                .register(registry);
+    }
+
+    /** 이미 기록했으면 아무것도 하지 않으므로 매 요청 호출해도 된다. */
+    public void record(int status, String uri) {
+        if (recorded.get() || status >= 400 || !recorded.compareAndSet(false, true)) {
+            return;
+        }
+        long elapsed = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        timer.record(elapsed, TimeUnit.MILLISECONDS);
+        logger.info("time-to-first-successful-request: {} ms, uri: {}", elapsed, uri);
+    }
+
+    public boolean isRecorded() {
+        return recorded.get();
+    }
+}
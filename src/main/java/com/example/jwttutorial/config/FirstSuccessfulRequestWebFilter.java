@@ -0,0 +1,40 @@
+package com.example.jwttutorial.config;
+
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * reactive 모드에서 처음으로 성공한 요청까지 걸린 시간을 FirstSuccessfulRequestRecorder 로 기록하는 WebFilter
+ * Security 의 WebFilterChainProxy 보다 먼저 실행되어야 인증 실패(401)도 끝난 요청으로 보고 건너뛴다.
+ * faststart 프로필에서 FastStartupConfig 가 등록한다.
+ */
+public class FirstSuccessfulRequestWebFilter implements WebFilter, Ordered {
+
+    private final FirstSuccessfulRequestRecorder recorder;
+
+    public FirstSuccessfulRequestWebFilter(FirstSuccessfulRequestRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (recorder.isRecorded()) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange).doOnSuccess(done -> {
+            /** 상태 코드를 설정하지 않고 끝난 응답은 200 */
+            HttpStatus status = exchange.getResponse().getStatusCode();
+            recorder.record(status != null ? status.value() : HttpStatus.OK.value(),
+                    exchange.getRequest().getPath().value());
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
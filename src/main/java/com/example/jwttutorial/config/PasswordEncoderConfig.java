@@ -0,0 +1,19 @@
+package com.example.jwttutorial.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * servlet / reactive 모드 모두에서 사용하는 PasswordEncoder 설정
+ */
+@Configuration
+public class PasswordEncoderConfig {
+
+    /** 암호 복호화위해 존재하는 bean */
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        return new BCryptPasswordEncoder();
+    }
+}
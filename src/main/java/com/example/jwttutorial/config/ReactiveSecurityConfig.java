@@ -0,0 +1,102 @@
+package com.example.jwttutorial.config;
+
+import com.example.jwttutorial.jwt.JwtWebFilter;
+import com.example.jwttutorial.jwt.RouteTable;
+import com.example.jwttutorial.jwt.TokenProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.config.annotation.method.configuration.EnableReactiveMethodSecurity;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.authorization.HttpStatusServerAccessDeniedHandler;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * reactive 모드 (spring.profiles.active=reactive) 에서 SecurityConfig 대신 적용되는 WebFlux Security 설정
+ * SecurityConfig 와 같은 규칙(permitAll 도메인, STATELESS, 401/403 처리)을 ServerHttpSecurity 로 구성한다.
+ */
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableWebFluxSecurity
+@EnableReactiveMethodSecurity  /** reactive 컨트롤러의 @PreAuthorize 적용 */
+public class ReactiveSecurityConfig {
+
+    private final TokenProvider tokenProvider;
+    private final RouteTable routeTable;
+
+    public ReactiveSecurityConfig(TokenProvider tokenProvider, RouteTable routeTable) {
+        this.tokenProvider = tokenProvider;
+        this.routeTable = routeTable;
+    }
+
+    /**
+     * BCrypt 는 CPU 를 오래 쓰는 연산이라 event loop 에서 돌리면 안되므로 별도 scheduler 에서 수행한다.
+     * 스레드 수를 CPU 코어 수로 제한해서 로그인이 몰려도 CPU 를 과점유하지 않고, 넘치는 작업은 큐에서 대기한다.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler bcryptScheduler(
+            @Value("${reactive.bcrypt.thread-cap:0}") int threadCap,
+            @Value("${reactive.bcrypt.queued-task-cap:10000}") int queuedTaskCap) {
+        int cap = threadCap > 0 ? threadCap : Runtime.getRuntime().availableProcessors();
+        return Schedulers.newBoundedElastic(cap, queuedTaskCap, "bcrypt");
+    }
+
+    /** 로그인시 ReactiveUserDetailsService 로 유저를 찾고, 비밀번호 검증은 bcryptScheduler 에서 수행 */
+    @Bean
+    public ReactiveAuthenticationManager reactiveAuthenticationManager(
+            ReactiveUserDetailsService reactiveUserDetailsService,
+            PasswordEncoder passwordEncoder,
+            @Qualifier("bcryptScheduler") Scheduler bcryptScheduler) {
+        UserDetailsRepositoryReactiveAuthenticationManager authenticationManager =
+                new UserDetailsRepositoryReactiveAuthenticationManager(reactiveUserDetailsService);
+        authenticationManager.setPasswordEncoder(passwordEncoder);
+        authenticationManager.setScheduler(bcryptScheduler);
+        return authenticationManager;
+    }
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http,
+                                                         ReactiveUserDetailsService reactiveUserDetailsService) {
+        return http
+                /** token을 사용하는 방식이기 때문에 csrf, 기본 로그인 방식들을 disable */
+                .csrf().disable()
+                .httpBasic().disable()
+                .formLogin().disable()
+
+                /** 인증 실패 401, 권한 부족 403 */
+                .exceptionHandling()
+                .authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.UNAUTHORIZED))
+                .accessDeniedHandler(new HttpStatusServerAccessDeniedHandler(HttpStatus.FORBIDDEN))
+
+                /** 세션을 사용하지 않기 때문에 SecurityContext 를 저장하지 않는다. */
+                .and()
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+
+                /**
+                 * 로그인 Api, 회원가입 Api는 Token 이 없는 상태에서 요청이 들어오므로, permitAll() 설정
+                 * WebFlux 에는 ignoring 이 없으므로 RouteTable 의 IGNORED 경로도 permitAll 로 처리
+                 */
+                .authorizeExchange()
+                .matchers(exchange -> JwtWebFilter.lookup(routeTable, exchange) == RouteTable.Access.AUTHENTICATED
+                        ? ServerWebExchangeMatcher.MatchResult.notMatch()
+                        : ServerWebExchangeMatcher.MatchResult.match()).permitAll()
+                .anyExchange().authenticated()
+
+                /** JwtWebFilter 를 인증 단계에 등록 */
+                .and()
+                .addFilterAt(new JwtWebFilter(tokenProvider, routeTable, reactiveUserDetailsService), SecurityWebFiltersOrder.AUTHENTICATION)
+                .build();
+    }
+}
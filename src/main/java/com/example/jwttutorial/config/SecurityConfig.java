@@ -4,16 +4,16 @@ package com.example.jwttutorial.config;
 import com.example.jwttutorial.jwt.JwtAccessDeniedHandler;
 import com.example.jwttutorial.jwt.JwtAuthenticationEntryPoint;
 import com.example.jwttutorial.jwt.JwtSecurityConfig;
+import com.example.jwttutorial.jwt.RouteTable;
 import com.example.jwttutorial.jwt.TokenProvider;
-import org.springframework.context.annotation.Bean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.builders.WebSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.filter.CorsFilter;
 
@@ -21,7 +21,9 @@ import org.springframework.web.filter.CorsFilter;
  * @EnableWebSecurity 는 기본적인 Web보안을 활성화 하겠다는 의미
  * 추가적인 설정을 위해서 WebSecurityConfigurer 을 implements 하거나
  * WebSecurityConfigurerAdapter 를 extends 하는 방법이 있다.
+ * servlet 모드에서만 적용되고, reactive 모드에서는 ReactiveSecurityConfig 가 대신 적용된다.
  */
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @EnableWebSecurity
 @EnableGlobalMethodSecurity(prePostEnabled = true)  /** @PreAuthorize 어노테이션을 메소드단위로 추가하기위해서 적용 */
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
@@ -29,32 +31,28 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     private final TokenProvider tokenProvider;
     private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
     private final JwtAccessDeniedHandler jwtAccessDeniedHandler;
+    private final RouteTable routeTable;
+    private final UserDetailsService userDetailsService;
 
     public SecurityConfig(
             TokenProvider tokenProvider,
             JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint,
-            JwtAccessDeniedHandler jwtAccessDeniedHandler
+            JwtAccessDeniedHandler jwtAccessDeniedHandler,
+            RouteTable routeTable,
+            UserDetailsService userDetailsService
     ) {
         this.tokenProvider = tokenProvider;
         this.jwtAuthenticationEntryPoint = jwtAuthenticationEntryPoint;
         this.jwtAccessDeniedHandler = jwtAccessDeniedHandler;
+        this.routeTable = routeTable;
+        this.userDetailsService = userDetailsService;
     }
 
-    /** 암호 복호화위해 존재하는 bean */
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
-    /** 해당 메소드는 무시해도 됌. 해당 도메인에는 무시되도록 설정 */
+    /** 해당 메소드는 무시해도 됌. 해당 도메인에는 무시되도록 설정 (RouteTable 의 IGNORED 경로) */
     @Override
     public void configure(WebSecurity web) {
         web.ignoring()
-                .antMatchers(
-                        "/h2-console/**"
-                        ,"/favicon.ico"
-                        ,"/error"
-                );
+                .requestMatchers(routeTable.matcher(RouteTable.Access.IGNORED));
     }
 
     @Override
@@ -79,19 +77,20 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .sessionManagement()
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
 
-                /** 로그인 Api, 회원가입 Api는 Token 이 없는 상태에서 요청이 들어오므로, permitAll() 설정 */
+                /**
+                 * 로그인 Api, 회원가입 Api는 Token 이 없는 상태에서 요청이 들어오므로, permitAll() 설정
+                 * permit 할 도메인은 SecurityRouteConfig 의 RouteTable 에서 한번의 lookup 으로 판단한다.
+                 */
                 .and()
                 .authorizeRequests()
-                .antMatchers("/api/hello").permitAll()
-                .antMatchers("/api/authenticate").permitAll()
-                .antMatchers("/api/signup").permitAll()
+                .requestMatchers(routeTable.matcher(RouteTable.Access.PUBLIC)).permitAll()
 
                 /** 위에 permit 한 도메인 뺴고는 접근 가능한 token 을 가진 유저만 접근가능하도록 */
                 .anyRequest().authenticated()
 
                 /** JwtFilter 를 addFilterBefore 로 등록했던 JwtSecurityConfig 클래스도 적용 */
                 .and()
-                .apply(new JwtSecurityConfig(tokenProvider));
+                .apply(new JwtSecurityConfig(tokenProvider, routeTable, userDetailsService));
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.example.jwttutorial.config;
+
+import com.example.jwttutorial.jwt.RouteTable;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static com.example.jwttutorial.jwt.RouteTable.Access.AUTHENTICATED;
+import static com.example.jwttutorial.jwt.RouteTable.Access.IGNORED;
+import static com.example.jwttutorial.jwt.RouteTable.Access.PUBLIC;
+
+/**
+ * 경로별 접근 방식을 한 곳에서 정의하는 설정
+ * SecurityConfig(ignoring, permitAll), JwtFilter(Token 검증 생략), ReactiveSecurityConfig 가 모두 이 RouteTable 을 사용한다.
+ */
+@Configuration
+public class SecurityRouteConfig {
+
+    @Bean
+    public RouteTable routeTable() {
+        return RouteTable.builder()
+                /** Security 를 아예 거치지 않는 경로 */
+                .route(IGNORED, "/h2-console/**", "/favicon.ico", "/error")
+
+                /** 로그인 Api, 회원가입 Api는 Token 이 없는 상태에서 요청이 들어오므로 PUBLIC */
+                .route(PUBLIC, "/api/hello", "/api/authenticate", "/api/signup")
+
+                /** 나머지는 접근 가능한 token 을 가진 유저만 접근가능하도록 */
+                .otherwise(AUTHENTICATED)
+                .build();
+    }
+}
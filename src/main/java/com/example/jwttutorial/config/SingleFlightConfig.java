@@ -0,0 +1,30 @@
+package com.example.jwttutorial.config;
+
+import com.example.jwttutorial.dto.UserDto;
+import com.example.jwttutorial.util.SingleFlight;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * username 단위 조회를 합치는 SingleFlight 설정
+ * MeterBinder 빈으로 등록되므로 /actuator/metrics/single.flight.* 에서 name 태그별로 합쳐진 요청 수를 볼 수 있다.
+ */
+@Configuration
+public class SingleFlightConfig {
+
+    /** CustomUserDetailsService 의 로그인 조회 */
+    @Bean
+    public SingleFlight<String, UserDetails> userDetailsSingleFlight(
+            @Value("${single-flight.timeout-ms:3000}") long timeoutMillis) {
+        return new SingleFlight<>("user-details", timeoutMillis);
+    }
+
+    /** UserService 의 조회 API (/api/user, /api/user/{username}) */
+    @Bean
+    public SingleFlight<String, UserDto> userDtoSingleFlight(
+            @Value("${single-flight.timeout-ms:3000}") long timeoutMillis) {
+        return new SingleFlight<>("user-dto", timeoutMillis);
+    }
+}
@@ -4,6 +4,7 @@ import com.example.jwttutorial.dto.LoginDto;
 import com.example.jwttutorial.dto.TokenDto;
 import com.example.jwttutorial.jwt.JwtFilter;
 import com.example.jwttutorial.jwt.TokenProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -18,6 +19,8 @@ import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
 
+/** servlet 모드 전용, reactive 모드에서는 ReactiveAuthController 가 같은 API 를 제공한다. */
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RestController
 @RequestMapping("/api")
 public class AuthController {
@@ -0,0 +1,58 @@
+package com.example.jwttutorial.controller;
+
+import com.example.jwttutorial.dto.LoginDto;
+import com.example.jwttutorial.dto.TokenDto;
+import com.example.jwttutorial.jwt.JwtFilter;
+import com.example.jwttutorial.jwt.TokenProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+
+/** reactive 모드에서 AuthController 와 같은 API 를 제공 */
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RestController
+@RequestMapping("/api")
+public class ReactiveAuthController {
+
+    private final TokenProvider tokenProvider;
+    private final ReactiveAuthenticationManager reactiveAuthenticationManager;
+
+    public ReactiveAuthController(TokenProvider tokenProvider, ReactiveAuthenticationManager reactiveAuthenticationManager) {
+        this.tokenProvider = tokenProvider;
+        this.reactiveAuthenticationManager = reactiveAuthenticationManager;
+    }
+
+    @PostMapping("/authenticate")
+    public Mono<ResponseEntity<TokenDto>> authorize(@Valid @RequestBody LoginDto loginDto) {
+
+        UsernamePasswordAuthenticationToken authenticationToken =
+                new UsernamePasswordAuthenticationToken(loginDto.getUsername(), loginDto.getPassword());
+
+        /**
+         * authenticate() 에서 ReactiveUserDetailsService 로 유저를 찾고 bcryptScheduler 에서 비밀번호를 검증한다.
+         * WebFlux 에서는 컨트롤러에서 발생한 AuthenticationException 을 entry point 가 처리하지 않으므로 직접 401 로 변환
+         */
+        return reactiveAuthenticationManager.authenticate(authenticationToken)
+                .map(authentication -> {
+                    String jwt = tokenProvider.createToken(authentication);
+
+                    HttpHeaders httpHeaders = new HttpHeaders();
+                    httpHeaders.add(JwtFilter.AUTHORIZATION_HEADER, "Bearer " + jwt);
+                    return new ResponseEntity<>(new TokenDto(jwt), httpHeaders, HttpStatus.OK);
+                })
+                .onErrorMap(AuthenticationException.class,
+                        e -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, e.getMessage()));
+    }
+}
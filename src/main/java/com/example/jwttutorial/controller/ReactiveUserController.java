@@ -0,0 +1,42 @@
+package com.example.jwttutorial.controller;
+
+import com.example.jwttutorial.dto.UserDto;
+import com.example.jwttutorial.service.ReactiveUserService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+
+/** reactive 모드에서 UserController 와 같은 API 를 제공 */
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RestController
+@RequestMapping("/api")
+public class ReactiveUserController {
+    private final ReactiveUserService reactiveUserService;
+
+    public ReactiveUserController(ReactiveUserService reactiveUserService) {
+        this.reactiveUserService = reactiveUserService;
+    }
+
+    @PostMapping("/signup")
+    public Mono<ResponseEntity<UserDto>> signup(
+            @Valid @RequestBody UserDto userDto
+    ) {
+        return reactiveUserService.signup(userDto).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/user")
+    @PreAuthorize("hasAnyRole('USER','ADMIN')")
+    public Mono<ResponseEntity<UserDto>> getMyUserInfo() {
+        return reactiveUserService.getMyUserWithAuthorities().map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/user/{username}")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public Mono<ResponseEntity<UserDto>> getUserInfo(@PathVariable String username) {
+        return reactiveUserService.getUserWithAuthorities(username).map(ResponseEntity::ok);
+    }
+}
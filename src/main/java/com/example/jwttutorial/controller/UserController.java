@@ -2,6 +2,7 @@ package com.example.jwttutorial.controller;
 
 import com.example.jwttutorial.dto.UserDto;
 import com.example.jwttutorial.service.UserService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -11,6 +12,8 @@ import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.io.IOException;
 
+/** servlet 모드 전용, reactive 모드에서는 ReactiveUserController 가 같은 API 를 제공한다. */
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RestController
 @RequestMapping("/api")
 public class UserController {
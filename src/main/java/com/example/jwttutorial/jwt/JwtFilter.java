@@ -1,10 +1,13 @@
 package com.example.jwttutorial.jwt;
 
 
+import io.jsonwebtoken.Claims;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.GenericFilterBean;
 
@@ -13,6 +16,7 @@ import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
 /**
@@ -26,9 +30,14 @@ public class JwtFilter extends GenericFilterBean {
     public static final String AUTHORIZATION_HEADER = "Authorization";
 
     private TokenProvider tokenProvider;
+    private RouteTable routeTable;
+    /** 재발급 전에 유저가 아직 활성화 상태인지, 현재 권한이 무엇인지 다시 확인하는데 사용 */
+    private UserDetailsService userDetailsService;
 
-    public JwtFilter(TokenProvider tokenProvider) {
+    public JwtFilter(TokenProvider tokenProvider, RouteTable routeTable, UserDetailsService userDetailsService) {
         this.tokenProvider = tokenProvider;
+        this.routeTable = routeTable;
+        this.userDetailsService = userDetailsService;
     }
 
     /**
@@ -39,18 +48,38 @@ public class JwtFilter extends GenericFilterBean {
     public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
             throws IOException, ServletException {
         /**
-         * resolveToken() 메소드를 통해 Token 을 받아와서 tokenProvider 에 있는 validateToken() 메소드로 유효성 검증을 하고,
+         * resolveToken() 메소드를 통해 Token 을 받아와서 tokenProvider 에 있는 parseClaims() 메소드로 유효성 검증을 하고,
          * 정상 Token 이면 SecurityContext에 저장
          */
         HttpServletRequest httpServletRequest = (HttpServletRequest) servletRequest;
+
+        /**
+         * Token 이 필요없는 PUBLIC 경로는 Header 를 읽거나 Token 을 검증하지 않고 바로 다음 필터로 넘긴다.
+         * (web.ignoring 에서 이미 lookup 한 결과를 request attribute 에서 재사용)
+         */
+        if (routeTable.is(httpServletRequest, RouteTable.Access.PUBLIC)) {
+            filterChain.doFilter(servletRequest, servletResponse);
+            return;
+        }
+
         String jwt = resolveToken(httpServletRequest);
         String requestURI = httpServletRequest.getRequestURI();
 
-        /** Token 정보 및 유효성 검증 */
-        if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-            Authentication authentication = tokenProvider.getAuthentication(jwt);
+        /** Token 정보 및 유효성 검증, 파싱은 한번만 하고 그 Claims 로 인증정보와 재발급 여부를 판단 */
+        Claims claims = StringUtils.hasText(jwt) ? tokenProvider.parseClaims(jwt) : null;
+        if (claims != null) {
+            Authentication authentication = tokenProvider.getAuthentication(claims, jwt);
             SecurityContextHolder.getContext().setAuthentication(authentication);
             logger.debug("Security Context에 '{}' 인증 정보를 저장했습니다, uri: {}", authentication.getName(), requestURI);
+
+            /** 만료가 가까운 Token 이면 재로그인 없이 새 Token 을 Response Header 로 내려준다. (jwt.renewal.enabled) */
+            if (tokenProvider.tryAcquireRenewal(claims)) {
+                String renewedJwt = tokenProvider.renewToken(claims, loadUser(claims.getSubject()));
+                if (renewedJwt != null) {
+                    ((HttpServletResponse) servletResponse).setHeader(AUTHORIZATION_HEADER, "Bearer " + renewedJwt);
+                    logger.debug("'{}' 의 JWT 토큰을 재발급했습니다, uri: {}", authentication.getName(), requestURI);
+                }
+            }
         } else {
             logger.debug("유효한 JWT 토큰이 없습니다, uri: {}", requestURI);
         }
@@ -59,6 +88,16 @@ public class JwtFilter extends GenericFilterBean {
         filterChain.doFilter(servletRequest, servletResponse);
     }
 
+    /** 삭제되었거나 비활성화된 유저는 null, 재발급만 하지 않고 현재 요청은 그대로 진행 */
+    private UserDetails loadUser(String username) {
+        try {
+            return userDetailsService.loadUserByUsername(username);
+        } catch (RuntimeException e) {
+            logger.debug("'{}' 의 JWT 토큰을 재발급하지 않습니다: {}", username, e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Request Header 에서 Token 정보를 꺼내오기 위한 resolveToken 메소드 추가
      */
@@ -3,6 +3,7 @@ package com.example.jwttutorial.jwt;
 
 import org.springframework.security.config.annotation.SecurityConfigurerAdapter;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.DefaultSecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
@@ -16,14 +17,18 @@ public class JwtSecurityConfig extends SecurityConfigurerAdapter<DefaultSecurity
      * JwtFilter 를 통해 Security 로직에 Filter 를 등록한다.
      */
     private TokenProvider tokenProvider;
+    private RouteTable routeTable;
+    private UserDetailsService userDetailsService;
 
-    public JwtSecurityConfig(TokenProvider tokenProvider) {
+    public JwtSecurityConfig(TokenProvider tokenProvider, RouteTable routeTable, UserDetailsService userDetailsService) {
         this.tokenProvider = tokenProvider;
+        this.routeTable = routeTable;
+        this.userDetailsService = userDetailsService;
     }
 
     @Override
     public void configure(HttpSecurity http) {
-        JwtFilter customFilter = new JwtFilter(tokenProvider);
+        JwtFilter customFilter = new JwtFilter(tokenProvider, routeTable, userDetailsService);
         /** UsernamePasswordAuthenticationFilter 해당 필터 전에 tokenProvider 를 넣은 customFilter 를 추가 */
         http.addFilterBefore(customFilter, UsernamePasswordAuthenticationFilter.class);
     }
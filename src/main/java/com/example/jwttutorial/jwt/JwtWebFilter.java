@@ -0,0 +1,111 @@
+package com.example.jwttutorial.jwt;
+
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * reactive 모드에서 JwtFilter 역할을 하는 WebFilter
+ * TokenProvider 를 그대로 사용해서 Token 을 검증하고, 인증정보를 ReactiveSecurityContextHolder 에 저장한다.
+ */
+public class JwtWebFilter implements WebFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtWebFilter.class);
+
+    /** 요청별 RouteTable lookup 결과를 저장하는 exchange attribute */
+    private static final String ACCESS_ATTRIBUTE = JwtWebFilter.class.getName() + ".ACCESS";
+
+    private final TokenProvider tokenProvider;
+    private final RouteTable routeTable;
+    /** 재발급 전에 유저가 아직 활성화 상태인지, 현재 권한이 무엇인지 다시 확인하는데 사용 */
+    private final ReactiveUserDetailsService userDetailsService;
+
+    public JwtWebFilter(TokenProvider tokenProvider, RouteTable routeTable, ReactiveUserDetailsService userDetailsService) {
+        this.tokenProvider = tokenProvider;
+        this.routeTable = routeTable;
+        this.userDetailsService = userDetailsService;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        /** Token 이 필요없는 경로는 Header 를 읽거나 Token 을 검증하지 않고 바로 다음 필터로 넘긴다. */
+        if (lookup(routeTable, exchange) != RouteTable.Access.AUTHENTICATED) {
+            return chain.filter(exchange);
+        }
+
+        String jwt = resolveToken(exchange);
+        String requestURI = exchange.getRequest().getPath().value();
+
+        /** Token 정보 및 유효성 검증, HMAC 검증은 짧은 CPU 연산이라 event loop 에서 바로 수행 (파싱은 한번만) */
+        Claims claims = StringUtils.hasText(jwt) ? tokenProvider.parseClaims(jwt) : null;
+        if (claims != null) {
+            Authentication authentication = tokenProvider.getAuthentication(claims, jwt);
+            logger.debug("Security Context에 '{}' 인증 정보를 저장했습니다, uri: {}", authentication.getName(), requestURI);
+
+            Mono<Void> filtered = chain.filter(exchange)
+                    .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication));
+            if (!tokenProvider.tryAcquireRenewal(claims)) {
+                return filtered;
+            }
+
+            /**
+             * 만료가 가까운 Token 이면 재로그인 없이 새 Token 을 Response Header 로 내려준다. (jwt.renewal.enabled)
+             * 유저를 다시 조회해서 삭제되었거나 비활성화 되었으면 재발급하지 않고 요청만 그대로 진행
+             */
+            return userDetailsService.findByUsername(claims.getSubject())
+                    .map(user -> {
+                        String renewedJwt = tokenProvider.renewToken(claims, user);
+                        if (renewedJwt != null) {
+                            exchange.getResponse().getHeaders().set(JwtFilter.AUTHORIZATION_HEADER, "Bearer " + renewedJwt);
+                            logger.debug("'{}' 의 JWT 토큰을 재발급했습니다, uri: {}", authentication.getName(), requestURI);
+                        }
+                        return user;
+                    })
+                    .onErrorResume(e -> {
+                        logger.debug("'{}' 의 JWT 토큰을 재발급하지 않습니다: {}", claims.getSubject(), e.getMessage());
+                        return Mono.empty();
+                    })
+                    .then(filtered);
+        }
+
+        logger.debug("유효한 JWT 토큰이 없습니다, uri: {}", requestURI);
+        return chain.filter(exchange);
+    }
+
+    /**
+     * 요청의 Access 를 리턴, JwtWebFilter 와 authorizeExchange 에서 모두 확인하므로 exchange attribute 에 저장해서 요청당 한번만 lookup
+     */
+    public static RouteTable.Access lookup(RouteTable routeTable, ServerWebExchange exchange) {
+        Object cached = exchange.getAttribute(ACCESS_ATTRIBUTE);
+        if (cached instanceof RouteTable.Access) {
+            return (RouteTable.Access) cached;
+        }
+        RouteTable.Access access = routeTable.lookup(requestPath(exchange));
+        exchange.getAttributes().put(ACCESS_ATTRIBUTE, access);
+        return access;
+    }
+
+    /** RouteTable 에서 사용할 요청 경로 (context path 제외) */
+    public static String requestPath(ServerWebExchange exchange) {
+        return exchange.getRequest().getPath().pathWithinApplication().value();
+    }
+
+    /**
+     * Request Header 에서 Token 정보를 꺼내오기 위한 resolveToken 메소드
+     */
+    private String resolveToken(ServerWebExchange exchange) {
+        String bearerToken = exchange.getRequest().getHeaders().getFirst(JwtFilter.AUTHORIZATION_HEADER);
+        if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
+            return bearerToken.substring(7);
+        }
+        return null;
+    }
+}
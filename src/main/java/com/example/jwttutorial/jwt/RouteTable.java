@@ -0,0 +1,230 @@
+package com.example.jwttutorial.jwt;
+
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 경로 세그먼트 단위 trie 로 미리 만들어 두는 라우트 표
+ * 시작할 때 SecurityRouteConfig 에서 한번 만들고, 요청마다 lookup 한번으로 해당 경로의 접근 방식을 결정한다.
+ * (antMatchers 를 순서대로 하나씩 매칭하는 대신 사용)
+ *
+ * 패턴은 "/" 로 나눈 세그먼트 단위이며, "*" 는 세그먼트 하나, 마지막의 "**" 는 남은 모든 세그먼트와 매칭된다.
+ * 구체적인 세그먼트가 "*" 보다, "*" 가 "**" 보다 우선한다.
+ *
+ * lookup 은 세그먼트를 잘라내지 않고 regionMatches 로 비교하므로 객체를 할당하지 않는다.
+ * servlet 요청은 web.ignoring / JwtFilter / permitAll 에서 모두 확인하므로, 결과를 request attribute 에 저장해서 요청당 한번만 lookup 한다.
+ */
+public class RouteTable {
+
+    public enum Access {
+        /** Security Filter 를 아예 거치지 않는 경로 (web.ignoring) */
+        IGNORED,
+        /** Token 없이 접근 가능한 경로, JwtFilter 도 Token 검증을 건너뛴다. */
+        PUBLIC,
+        /** 유효한 Token 이 필요한 경로 */
+        AUTHENTICATED
+    }
+
+    private static final String ANY_SEGMENT = "*";
+    private static final String ANY_PATH = "**";
+
+    /** 요청별 lookup 결과를 저장하는 request attribute */
+    static final String ACCESS_ATTRIBUTE = RouteTable.class.getName() + ".ACCESS";
+
+    private final Node root;
+    private final Access defaultAccess;
+
+    private RouteTable(Node root, Access defaultAccess) {
+        this.root = root;
+        this.defaultAccess = defaultAccess;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** path 에 해당하는 Access 를 리턴, 등록된 패턴이 없으면 defaultAccess */
+    public Access lookup(String path) {
+        Access matched = lookup(root, path, 0);
+        return matched != null ? matched : defaultAccess;
+    }
+
+    public boolean is(String path, Access access) {
+        return lookup(path) == access;
+    }
+
+    /**
+     * 요청의 Access 를 리턴, 같은 요청에서 이미 lookup 했으면 저장해 둔 결과를 사용
+     * forward / error dispatch 로 경로가 바뀌면 다시 lookup 한다.
+     */
+    public Access lookup(HttpServletRequest request) {
+        String servletPath = request.getServletPath();
+        String pathInfo = request.getPathInfo();
+
+        Object cached = request.getAttribute(ACCESS_ATTRIBUTE);
+        if (cached instanceof ResolvedAccess) {
+            ResolvedAccess resolved = (ResolvedAccess) cached;
+            if (resolved.routeTable == this
+                    && Objects.equals(resolved.servletPath, servletPath)
+                    && Objects.equals(resolved.pathInfo, pathInfo)) {
+                return resolved.access;
+            }
+        }
+
+        Access access = lookup(pathInfo == null ? servletPath : servletPath + pathInfo);
+        request.setAttribute(ACCESS_ATTRIBUTE, new ResolvedAccess(this, servletPath, pathInfo, access));
+        return access;
+    }
+
+    public boolean is(HttpServletRequest request, Access access) {
+        return lookup(request) == access;
+    }
+
+    /** 요청 경로가 access 에 해당하는지 확인하는 RequestMatcher, 경로는 AntPathRequestMatcher 와 같이 servletPath + pathInfo 를 사용 */
+    public RequestMatcher matcher(Access access) {
+        return request -> is(request, access);
+    }
+
+    private static Access lookup(Node node, String path, int from) {
+        int start = from;
+        while (start < path.length() && path.charAt(start) == '/') {
+            start++;
+        }
+
+        if (start >= path.length()) {
+            if (node.access != null) {
+                return node.access;
+            }
+            return node.anyPath != null ? node.anyPath.access : null;
+        }
+
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = path.length();
+        }
+
+        Node literal = node.child(path, start, end - start);
+        if (literal != null) {
+            Access access = lookup(literal, path, end);
+            if (access != null) {
+                return access;
+            }
+        }
+        if (node.anySegment != null) {
+            Access access = lookup(node.anySegment, path, end);
+            if (access != null) {
+                return access;
+            }
+        }
+        return node.anyPath != null ? node.anyPath.access : null;
+    }
+
+    /**
+     * trie 의 노드, 구체적인 세그먼트는 배열에 두고 regionMatches 로 찾는다. (라우트 수가 적어서 선형 탐색으로 충분)
+     * "*" / "**" 는 별도 필드로 둔다.
+     */
+    private static class Node {
+        private String[] segments = new String[0];
+        private Node[] children = new Node[0];
+        private Node anySegment;
+        private Node anyPath;
+        private Access access;
+
+        private Node child(String path, int offset, int length) {
+            for (int i = 0; i < segments.length; i++) {
+                String segment = segments[i];
+                if (segment.length() == length && path.regionMatches(offset, segment, 0, length)) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        /** Builder 에서만 사용 */
+        private Node childOrCreate(String segment) {
+            if (segment.equals(ANY_SEGMENT)) {
+                if (anySegment == null) {
+                    anySegment = new Node();
+                }
+                return anySegment;
+            }
+            if (segment.equals(ANY_PATH)) {
+                if (anyPath == null) {
+                    anyPath = new Node();
+                }
+                return anyPath;
+            }
+            Node child = child(segment, 0, segment.length());
+            if (child == null) {
+                child = new Node();
+                segments = Arrays.copyOf(segments, segments.length + 1);
+                children = Arrays.copyOf(children, children.length + 1);
+                segments[segments.length - 1] = segment;
+                children[children.length - 1] = child;
+            }
+            return child;
+        }
+    }
+
+    /** request attribute 에 저장하는 lookup 결과 */
+    private static class ResolvedAccess {
+        private final RouteTable routeTable;
+        private final String servletPath;
+        private final String pathInfo;
+        private final Access access;
+
+        private ResolvedAccess(RouteTable routeTable, String servletPath, String pathInfo, Access access) {
+            this.routeTable = routeTable;
+            this.servletPath = servletPath;
+            this.pathInfo = pathInfo;
+            this.access = access;
+        }
+    }
+
+    public static class Builder {
+        private final Node root = new Node();
+        private Access defaultAccess = Access.AUTHENTICATED;
+
+        /**
+         * 같은 패턴을 여러번 등록하면 먼저 등록한 Access 가 유지된다. (antMatchers 순서와 동일)
+         * "**" 는 패턴의 마지막 세그먼트에만 올 수 있고, 중간에 있으면 IllegalArgumentException
+         */
+        public Builder route(Access access, String... patterns) {
+            for (String pattern : patterns) {
+                Node node = root;
+                String[] segments = pattern.split("/");
+                int last = segments.length - 1;
+                while (last >= 0 && segments[last].isEmpty()) {
+                    last--;
+                }
+                for (int i = 0; i <= last; i++) {
+                    String segment = segments[i];
+                    if (segment.isEmpty()) {
+                        continue;
+                    }
+                    if (segment.equals(ANY_PATH) && i != last) {
+                        throw new IllegalArgumentException(pattern + " -> \"" + ANY_PATH + "\" 는 패턴의 마지막에만 사용할 수 있습니다.");
+                    }
+                    node = node.childOrCreate(segment);
+                }
+                if (node.access == null) {
+                    node.access = access;
+                }
+            }
+            return this;
+        }
+
+        /** 등록되지 않은 경로에 적용할 Access (anyRequest) */
+        public Builder otherwise(Access access) {
+            this.defaultAccess = access;
+            return this;
+        }
+
+        public RouteTable build() {
+            return new RouteTable(root, defaultAccess);
+        }
+    }
+}
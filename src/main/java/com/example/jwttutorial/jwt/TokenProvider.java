@@ -12,12 +12,16 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 /**
@@ -33,23 +37,55 @@ public class TokenProvider implements InitializingBean {
     private final Logger logger = LoggerFactory.getLogger(TokenProvider.class);
 
     private static final String AUTHORITIES_KEY = "auth";
+    /** 최초 로그인 시각(epoch seconds), 재발급된 Token 에도 그대로 복사해서 세션 전체 수명을 제한하는데 사용 */
+    private static final String AUTH_TIME_KEY = "auth_time";
 
     private final String secret;
     private final long tokenValidityInMilliseconds;
 
+    /**
+     * Sliding-expiration 재발급 설정 (jwt.renewal.*)
+     * 만료까지 renewalWindow 이하로 남은 유효한 Token 이 들어오면 JwtFilter 가 새 Token 을 Response Header 로 내려준다.
+     * 같은 시각에 발급된 Token 들이 한꺼번에 만료되지 않도록 새 만료시간에서 0 ~ renewalJitter 만큼을 랜덤으로 빼고,
+     * 같은 subject 에 대해서는 renewalInterval 안에 한번만 재발급한다.
+     * 최초 로그인(auth_time) 후 renewalMaxLifetime 이 지나면 더이상 재발급하지 않고, 재발급 Token 의 만료도 그 시각을 넘지 않는다.
+     */
+    private final boolean renewalEnabled;
+    private final long renewalWindowInMilliseconds;
+    private final long renewalJitterInMilliseconds;
+    private final long renewalIntervalInMilliseconds;
+    private final long renewalMaxLifetimeInMilliseconds;
+
+    /** subject 별 마지막 재발급 시각 */
+    private final Map<String, Long> lastRenewals = new ConcurrentHashMap<>();
+    private volatile long lastRenewalPrune;
+
     private Key key;
+    private JwtParser jwtParser;
 
     public TokenProvider(
             @Value("${jwt.secret}") String secret,
-            @Value("${jwt.token-validity-in-seconds}") long tokenValidityInSeconds) {
+            @Value("${jwt.token-validity-in-seconds}") long tokenValidityInSeconds,
+            @Value("${jwt.renewal.enabled:false}") boolean renewalEnabled,
+            @Value("${jwt.renewal.window-in-seconds:3600}") long renewalWindowInSeconds,
+            @Value("${jwt.renewal.jitter-in-seconds:600}") long renewalJitterInSeconds,
+            @Value("${jwt.renewal.interval-in-seconds:60}") long renewalIntervalInSeconds,
+            @Value("${jwt.renewal.max-lifetime-in-seconds:604800}") long renewalMaxLifetimeInSeconds) {
         this.secret = secret;
         this.tokenValidityInMilliseconds = tokenValidityInSeconds * 1000;
+        this.renewalEnabled = renewalEnabled;
+        this.renewalWindowInMilliseconds = renewalWindowInSeconds * 1000;
+        this.renewalJitterInMilliseconds = renewalJitterInSeconds * 1000;
+        this.renewalIntervalInMilliseconds = renewalIntervalInSeconds * 1000;
+        this.renewalMaxLifetimeInMilliseconds = renewalMaxLifetimeInSeconds * 1000;
     }
 
     @Override
     public void afterPropertiesSet() {
         byte[] keyBytes = Decoders.BASE64.decode(secret);
         this.key = Keys.hmacShaKeyFor(keyBytes);
+        /** parser 는 thread-safe 하므로 한번만 만들어서 재사용 */
+        this.jwtParser = Jwts.parserBuilder().setSigningKey(key).build();
     }
 
     /**
@@ -70,11 +106,115 @@ public class TokenProvider implements InitializingBean {
         return Jwts.builder()
                 .setSubject(authentication.getName())
                 .claim(AUTHORITIES_KEY, authorities)
+                .claim(AUTH_TIME_KEY, now / 1000)
+                .setIssuedAt(new Date(now))
                 .signWith(key, SignatureAlgorithm.HS512)
                 .setExpiration(validity)
                 .compact();
     }
 
+    /**
+     * Token 의 서명과 만료를 검증하고 Claims 를 리턴하는 메소드, 문제가 있으면 로그를 남기고 null 을 리턴
+     * JwtFilter 는 요청마다 이 메소드로 한번만 파싱하고, 그 Claims 를 getAuthentication / 재발급 판단에 같이 사용한다.
+     */
+    public Claims parseClaims(String token) {
+        try {
+            return jwtParser.parseClaimsJws(token).getBody();
+        } catch (io.jsonwebtoken.security.SecurityException | MalformedJwtException e) {
+            logger.info("잘못된 JWT 서명입니다.");
+        } catch (ExpiredJwtException e) {
+            logger.info("만료된 JWT 토큰입니다.");
+        } catch (UnsupportedJwtException e) {
+            logger.info("지원되지 않는 JWT 토큰입니다.");
+        } catch (IllegalArgumentException e) {
+            logger.info("JWT 토큰이 잘못되었습니다.");
+        }
+        return null;
+    }
+
+    /**
+     * 재발급 대상인지 확인하고, 대상이면 해당 subject 의 재발급 권한을 획득하는 메소드
+     * 재발급이 꺼져 있거나, 만료까지 renewalWindow 보다 많이 남았거나, 최초 로그인 후 renewalMaxLifetime 이 지났거나,
+     * 같은 subject 가 renewalInterval 안에 이미 재발급 받았다면 false
+     * true 를 리턴한 경우 호출하는 쪽에서 유저가 아직 활성화 상태인지 확인한 뒤 renewToken 을 호출한다.
+     */
+    public boolean tryAcquireRenewal(Claims claims) {
+        if (!renewalEnabled) {
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+        if (claims.getExpiration().getTime() - now > renewalWindowInMilliseconds) {
+            return false;
+        }
+        if (now >= sessionDeadline(claims)) {
+            return false;
+        }
+
+        /** 같은 subject 로 동시에 여러 요청이 들어와도 한번만 재발급되도록 compute 안에서 마지막 재발급 시각을 갱신 */
+        boolean[] acquired = new boolean[1];
+        lastRenewals.compute(claims.getSubject(), (renewalSubject, lastRenewal) -> {
+            if (lastRenewal != null && now - lastRenewal < renewalIntervalInMilliseconds) {
+                return lastRenewal;
+            }
+            acquired[0] = true;
+            return now;
+        });
+
+        /** renewalInterval 이 지난 기록은 더이상 필요없으므로 interval 마다 한번씩 정리 */
+        if (now - lastRenewalPrune >= renewalIntervalInMilliseconds) {
+            lastRenewalPrune = now;
+            lastRenewals.values().removeIf(lastRenewal -> now - lastRenewal >= renewalIntervalInMilliseconds);
+        }
+        return acquired[0];
+    }
+
+    /**
+     * tryAcquireRenewal 을 통과한 Token 의 Claims 와 DB 에서 다시 읽은 유저 정보로 새 Token 을 만들어 리턴하는 메소드
+     * 비밀번호를 다시 확인하지 않는 대신 유저가 비활성화 되었으면 null 을 리턴하고, 권한은 현재 유저 정보 기준으로 다시 채운다.
+     * auth_time 은 원래 Token 의 값을 그대로 복사하고, 만료시간은 jitter 를 적용하되 auth_time + renewalMaxLifetime 을 넘지 않는다.
+     */
+    public String renewToken(Claims claims, UserDetails user) {
+        if (user == null || !user.isEnabled() || !user.isAccountNonLocked() || !user.isAccountNonExpired()) {
+            return null;
+        }
+
+        String authorities = user.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.joining(","));
+
+        /** 새 만료시간에 jitter 를 적용해서 다음 재발급 시점이 한 곳에 몰리지 않도록 분산 */
+        long now = System.currentTimeMillis();
+        long jitter = renewalJitterInMilliseconds > 0
+                ? ThreadLocalRandom.current().nextLong(renewalJitterInMilliseconds + 1)
+                : 0;
+        Date validity = new Date(Math.min(now + this.tokenValidityInMilliseconds - jitter, sessionDeadline(claims)));
+
+        return Jwts.builder()
+                .setSubject(claims.getSubject())
+                .claim(AUTHORITIES_KEY, authorities)
+                .claim(AUTH_TIME_KEY, authTimeMillis(claims) / 1000)
+                .setIssuedAt(new Date(now))
+                .signWith(key, SignatureAlgorithm.HS512)
+                .setExpiration(validity)
+                .compact();
+    }
+
+    /** 최초 로그인 시각 + renewalMaxLifetime, 이 시각 이후로는 재발급하지 않는다. */
+    private long sessionDeadline(Claims claims) {
+        return authTimeMillis(claims) + renewalMaxLifetimeInMilliseconds;
+    }
+
+    /** auth_time 이 없는 Token (이전 버전에서 발급) 은 iat, 그것도 없으면 0 으로 보고 재발급하지 않는다. */
+    private static long authTimeMillis(Claims claims) {
+        Number authTime = claims.get(AUTH_TIME_KEY, Number.class);
+        if (authTime != null) {
+            return authTime.longValue() * 1000;
+        }
+        Date issuedAt = claims.getIssuedAt();
+        return issuedAt != null ? issuedAt.getTime() : 0;
+    }
+
     /**
      * Token 에 담겨있는 정보를 이용해 Authentication 객체를 리턴하는 메소드 생성
      * Token 으로 Claim 을 만들고, 이를 이용해 유저객체를 만들어서 최종적으로 Authentication 객체를 리턴
@@ -82,13 +222,11 @@ public class TokenProvider implements InitializingBean {
      * 위의 createToken 메소드 거꾸로라고 생각하면 편할듯 ?
      */
     public Authentication getAuthentication(String token) {
-        Claims claims = Jwts
-                .parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return getAuthentication(jwtParser.parseClaimsJws(token).getBody(), token);
+    }
 
+    /** 이미 검증된 Claims 로 Authentication 객체를 만드는 메소드 (Token 을 다시 파싱하지 않음) */
+    public Authentication getAuthentication(Claims claims, String token) {
         Collection<? extends GrantedAuthority> authorities =
                 Arrays.stream(claims.get(AUTHORITIES_KEY).toString().split(","))
                         .map(SimpleGrantedAuthority::new)
@@ -104,18 +242,6 @@ public class TokenProvider implements InitializingBean {
      * Token 을 parameter 로 받아서 파싱해보고 발생하는 Exception을 catch, 문제가 있으면 false 정상이면 true
      */
     public boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
-            return true;
-        } catch (io.jsonwebtoken.security.SecurityException | MalformedJwtException e) {
-            logger.info("잘못된 JWT 서명입니다.");
-        } catch (ExpiredJwtException e) {
-            logger.info("만료된 JWT 토큰입니다.");
-        } catch (UnsupportedJwtException e) {
-            logger.info("지원되지 않는 JWT 토큰입니다.");
-        } catch (IllegalArgumentException e) {
-            logger.info("JWT 토큰이 잘못되었습니다.");
-        }
-        return false;
+        return parseClaims(token) != null;
     }
 }
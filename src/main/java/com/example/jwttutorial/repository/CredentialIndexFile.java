@@ -0,0 +1,359 @@
+package com.example.jwttutorial.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * username -> (bcrypt hash, 활성화 여부, 권한 bitmask) 를 저장하는 memory-mapped 파일 (open addressing hash table)
+ * 데이터는 heap 이 아닌 mmap 된 파일에 있으므로 유저 수가 늘어나도 heap 사용량은 일정하다.
+ *
+ * 파일 구조
+ *  header : magic, version, capacity, size, slotsOffset, 권한 수, 권한 이름들 (bit 순서)
+ *  slots  : SLOT_SIZE 바이트 고정 크기 slot * capacity (capacity 는 2의 거듭제곱, linear probing)
+ *
+ * find 는 String.hashCode 와 charAt 만 사용하므로 객체를 할당하지 않는다.
+ * put 은 공개(CredentialIndexService 에서 교체)되기 전의 인스턴스에만 호출해야 한다.
+ *
+ * bcrypt 해시가 들어있으므로 디렉토리는 0700, 파일은 0600 으로 만든다. (POSIX 파일시스템인 경우)
+ * close 하면 mapping 을 바로 해제하므로, 그 이후에는 어떤 메소드도 호출하면 안된다. (CredentialIndexService 에서 참조 수로 관리)
+ */
+public final class CredentialIndexFile implements Closeable {
+
+    private static final int MAGIC = 0x4A574349;  // "JWCI"
+    private static final int VERSION = 1;
+
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int SIZE_OFFSET = 12;
+    private static final int SLOTS_OFFSET_OFFSET = 16;
+    private static final int AUTHORITY_COUNT_OFFSET = 20;
+    private static final int AUTHORITY_NAMES_OFFSET = 24;
+
+    /** username 은 UTF-16 그대로 저장해서 String 과 charAt 으로 비교 (user.username 컬럼 길이 50) */
+    public static final int MAX_USERNAME_LENGTH = 50;
+    /** password 는 1 byte 문자만 저장 (bcrypt 해시는 60 자 ASCII) */
+    public static final int MAX_PASSWORD_LENGTH = 72;
+    /** 권한은 long bitmask 로 저장 */
+    public static final int MAX_AUTHORITIES = 64;
+
+    private static final int SLOT_HASH = 0;
+    private static final int SLOT_USERNAME_LENGTH = 4;
+    private static final int SLOT_PASSWORD_LENGTH = 5;
+    private static final int SLOT_FLAGS = 6;
+    private static final int SLOT_AUTHORITIES = 8;
+    private static final int SLOT_USERNAME = 16;
+    private static final int SLOT_PASSWORD = SLOT_USERNAME + MAX_USERNAME_LENGTH * 2;
+    private static final int SLOT_SIZE = 192;
+
+    private static final byte FLAG_ACTIVATED = 1;
+
+    /** slot 이 이 비율 이상 차면 더 넣지 않고 새로 만든다. */
+    private static final double MAX_LOAD_FACTOR = 0.7;
+
+    private static final boolean POSIX = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final int slotsOffset;
+    private final List<String> authorityNames;
+
+    private CredentialIndexFile(Path path, MappedByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException(path + " -> credential index 파일 형식이 아닙니다.");
+        }
+        this.path = path;
+        this.buffer = buffer;
+        this.capacity = buffer.getInt(CAPACITY_OFFSET);
+        this.slotsOffset = buffer.getInt(SLOTS_OFFSET_OFFSET);
+
+        int authorityCount = buffer.getInt(AUTHORITY_COUNT_OFFSET);
+        List<String> names = new ArrayList<>(authorityCount);
+        int offset = AUTHORITY_NAMES_OFFSET;
+        for (int i = 0; i < authorityCount; i++) {
+            int length = buffer.getShort(offset);
+            offset += 2;
+            char[] chars = new char[length];
+            for (int c = 0; c < length; c++) {
+                chars[c] = buffer.getChar(offset);
+                offset += 2;
+            }
+            names.add(new String(chars));
+        }
+        this.authorityNames = Collections.unmodifiableList(names);
+    }
+
+    /** expectedEntries 개를 MAX_LOAD_FACTOR 아래로 담을 수 있는 빈 index 파일을 만든다. */
+    public static CredentialIndexFile create(Path path, int expectedEntries, List<String> authorityNames) throws IOException {
+        if (authorityNames.size() > MAX_AUTHORITIES) {
+            throw new IllegalArgumentException("권한은 " + MAX_AUTHORITIES + " 개까지만 index 할 수 있습니다.");
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(16, (int) Math.ceil(expectedEntries / MAX_LOAD_FACTOR)) - 1) << 1;
+        int headerSize = AUTHORITY_NAMES_OFFSET;
+        for (String name : authorityNames) {
+            headerSize += 2 + name.length() * 2;
+        }
+        int slotsOffset = (headerSize + SLOT_SIZE - 1) / SLOT_SIZE * SLOT_SIZE;
+        long fileSize = slotsOffset + (long) capacity * SLOT_SIZE;
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(expectedEntries + " 개는 하나의 index 파일에 담을 수 없습니다.");
+        }
+
+        Files.deleteIfExists(path);
+        MappedByteBuffer buffer = map(path, fileSize);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        buffer.putInt(SIZE_OFFSET, 0);
+        buffer.putInt(SLOTS_OFFSET_OFFSET, slotsOffset);
+        buffer.putInt(AUTHORITY_COUNT_OFFSET, authorityNames.size());
+        int offset = AUTHORITY_NAMES_OFFSET;
+        for (String name : authorityNames) {
+            buffer.putShort(offset, (short) name.length());
+            offset += 2;
+            for (int c = 0; c < name.length(); c++) {
+                buffer.putChar(offset, name.charAt(c));
+                offset += 2;
+            }
+        }
+        return new CredentialIndexFile(path, buffer);
+    }
+
+    /**
+     * 현재 파일을 target 으로 복사해서 put 할 수 있는 새 인스턴스를 만든다.
+     * 변경을 모아서 새 파일로 합칠 때(compaction)만 사용, heap 을 거치지 않고 mapping 끼리 복사한다.
+     */
+    public CredentialIndexFile copyTo(Path target) throws IOException {
+        Files.deleteIfExists(target);
+        MappedByteBuffer copy = map(target, buffer.capacity());
+        /** absolute get/put 만 사용하므로 duplicate 의 position 은 0, limit 은 파일 크기 그대로 */
+        copy.put(buffer.duplicate());
+        return new CredentialIndexFile(target, copy);
+    }
+
+    /** index 파일을 둘 디렉토리를 만들고 owner 만 접근할 수 있도록(0700) 권한을 설정한다. */
+    public static void createDirectories(Path directory) throws IOException {
+        if (!POSIX) {
+            Files.createDirectories(directory);
+            return;
+        }
+        Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        /** 이미 있던 디렉토리도 같은 권한으로 맞춘다. */
+        Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwx------"));
+    }
+
+    /** owner 만 읽고 쓸 수 있는(0600) 새 파일을 만들어서 mapping */
+    private static MappedByteBuffer map(Path path, long size) throws IOException {
+        FileAttribute<?>[] attributes = POSIX
+                ? new FileAttribute<?>[]{PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"))}
+                : new FileAttribute<?>[0];
+        try (FileChannel channel = FileChannel.open(path,
+                EnumSet.of(StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE), attributes)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * mapping 을 바로 해제한다. (GC 를 기다리면 교체된 파일들의 mapping 이 계속 쌓인다.)
+     * JDK 내부 API 를 사용하므로 해제하지 못하는 JVM 에서는 GC 될 때 해제된다.
+     */
+    @Override
+    public void close() {
+        Unmapper.unmap(buffer);
+    }
+
+    /** count 개를 더 넣어도 MAX_LOAD_FACTOR 를 넘지 않는지 */
+    public boolean hasRoomFor(int count) {
+        return size() + count <= capacity * MAX_LOAD_FACTOR;
+    }
+
+    /**
+     * 유저 정보를 저장, 같은 username 이 있으면 덮어쓴다.
+     * username / password 길이가 slot 에 맞지 않거나 index 에 없는 권한이 있으면 저장하지 않고 false 를 리턴 (조회시 DB 로 fallback)
+     */
+    public boolean put(String username, String password, boolean activated, Collection<String> authorities) {
+        if (username.isEmpty() || username.length() > MAX_USERNAME_LENGTH
+                || password == null || password.length() > MAX_PASSWORD_LENGTH) {
+            return false;
+        }
+        long authorityMask = 0;
+        for (String authority : authorities) {
+            int bit = authorityNames.indexOf(authority);
+            if (bit < 0) {
+                return false;
+            }
+            authorityMask |= 1L << bit;
+        }
+        for (int c = 0; c < password.length(); c++) {
+            if (password.charAt(c) > 0xFF) {
+                return false;
+            }
+        }
+
+        int slot = find(username);
+        if (slot < 0) {
+            if (!hasRoomFor(1)) {
+                return false;
+            }
+            int hash = hash(username);
+            slot = hash & (capacity - 1);
+            while (buffer.getInt(offset(slot) + SLOT_HASH) != 0) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            buffer.putInt(SIZE_OFFSET, size() + 1);
+
+            int offset = offset(slot);
+            buffer.put(offset + SLOT_USERNAME_LENGTH, (byte) username.length());
+            for (int c = 0; c < username.length(); c++) {
+                buffer.putChar(offset + SLOT_USERNAME + c * 2, username.charAt(c));
+            }
+            /** hash 를 마지막에 써서 slot 이 채워졌음을 표시 */
+            writeCredentials(offset, password, activated, authorityMask);
+            buffer.putInt(offset + SLOT_HASH, hash);
+        } else {
+            writeCredentials(offset(slot), password, activated, authorityMask);
+        }
+        return true;
+    }
+
+    private void writeCredentials(int offset, String password, boolean activated, long authorityMask) {
+        buffer.put(offset + SLOT_PASSWORD_LENGTH, (byte) password.length());
+        for (int c = 0; c < password.length(); c++) {
+            buffer.put(offset + SLOT_PASSWORD + c, (byte) password.charAt(c));
+        }
+        buffer.put(offset + SLOT_FLAGS, activated ? FLAG_ACTIVATED : 0);
+        buffer.putLong(offset + SLOT_AUTHORITIES, authorityMask);
+    }
+
+    /** username 의 slot 번호를 리턴, 없으면 -1 (객체 할당 없음) */
+    public int find(String username) {
+        int length = username.length();
+        if (length == 0 || length > MAX_USERNAME_LENGTH) {
+            return -1;
+        }
+        int hash = hash(username);
+        int slot = hash & (capacity - 1);
+        while (true) {
+            int offset = offset(slot);
+            int slotHash = buffer.getInt(offset + SLOT_HASH);
+            if (slotHash == 0) {
+                return -1;
+            }
+            if (slotHash == hash && matches(offset, username, length)) {
+                return slot;
+            }
+            slot = (slot + 1) & (capacity - 1);
+        }
+    }
+
+    private boolean matches(int offset, String username, int length) {
+        if ((buffer.get(offset + SLOT_USERNAME_LENGTH) & 0xFF) != length) {
+            return false;
+        }
+        for (int c = 0; c < length; c++) {
+            if (buffer.getChar(offset + SLOT_USERNAME + c * 2) != username.charAt(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isActivated(int slot) {
+        return (buffer.get(offset(slot) + SLOT_FLAGS) & FLAG_ACTIVATED) != 0;
+    }
+
+    public long authorityMask(int slot) {
+        return buffer.getLong(offset(slot) + SLOT_AUTHORITIES);
+    }
+
+    public String password(int slot) {
+        int offset = offset(slot);
+        int length = buffer.get(offset + SLOT_PASSWORD_LENGTH) & 0xFF;
+        char[] chars = new char[length];
+        for (int c = 0; c < length; c++) {
+            chars[c] = (char) (buffer.get(offset + SLOT_PASSWORD + c) & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    /** bitmask 의 bit 순서에 해당하는 권한 이름 */
+    public List<String> getAuthorityNames() {
+        return authorityNames;
+    }
+
+    public int size() {
+        return buffer.getInt(SIZE_OFFSET);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    private int offset(int slot) {
+        return slotsOffset + slot * SLOT_SIZE;
+    }
+
+    /** 0 은 빈 slot 표시로 사용하므로 hash 는 0 이 되지 않도록 한다. (테스트에서 같은 slot 에 모이는 username 을 찾는데도 사용) */
+    static int hash(String username) {
+        int h = username.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h == 0 ? 1 : h;
+    }
+
+    /** Java 9+ 는 Unsafe.invokeCleaner, Java 8 은 DirectBuffer.cleaner().clean() 으로 mapping 해제 */
+    private static final class Unmapper {
+        private static final Object UNSAFE;
+        private static final Method INVOKE_CLEANER;
+
+        static {
+            Object unsafe = null;
+            Method invokeCleaner = null;
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                unsafe = theUnsafe.get(null);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                invokeCleaner = null;
+            }
+            UNSAFE = unsafe;
+            INVOKE_CLEANER = invokeCleaner;
+        }
+
+        private static void unmap(MappedByteBuffer buffer) {
+            try {
+                if (INVOKE_CLEANER != null) {
+                    INVOKE_CLEANER.invoke(UNSAFE, buffer);
+                    return;
+                }
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                /** 해제하지 못하면 GC 될 때 해제된다. */
+            }
+        }
+    }
+}
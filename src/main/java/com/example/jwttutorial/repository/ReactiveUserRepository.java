@@ -0,0 +1,107 @@
+package com.example.jwttutorial.repository;
+
+import com.example.jwttutorial.entity.Authority;
+import com.example.jwttutorial.entity.User;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * reactive 모드에서 사용하는 R2DBC 기반 User 조회/저장 Repository
+ * User 엔티티는 JPA 연관관계(authorities)를 가지고 있어서 Spring Data R2DBC 매핑 대상으로 쓸 수 없으므로,
+ * DatabaseClient 로 직접 SQL 을 실행하고 결과를 User 객체(영속성 컨텍스트와 무관한 단순 객체)로 만들어 리턴한다.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveUserRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /** UserRepository.findOneWithAuthoritiesByUsername 과 같은 역할, 권한 수 만큼 나오는 행을 하나의 User 로 합친다. */
+    public Mono<User> findOneWithAuthoritiesByUsername(String username) {
+        return databaseClient.sql("SELECT U.USER_ID, U.USERNAME, U.PASSWORD, U.NICKNAME, U.ACTIVATED, UA.AUTHORITY_NAME " +
+                        "FROM USER U LEFT JOIN USER_AUTHORITY UA ON U.USER_ID = UA.USER_ID " +
+                        "WHERE U.USERNAME = :username")
+                .bind("username", username)
+                .map((row, metadata) -> new UserAuthorityRow(
+                        row.get("USER_ID", Long.class),
+                        row.get("USERNAME", String.class),
+                        row.get("PASSWORD", String.class),
+                        row.get("NICKNAME", String.class),
+                        Boolean.TRUE.equals(row.get("ACTIVATED", Boolean.class)),
+                        row.get("AUTHORITY_NAME", String.class)))
+                .all()
+                .collectList()
+                .flatMap(rows -> rows.isEmpty() ? Mono.empty() : Mono.just(toUser(rows)));
+    }
+
+    /** user, user_authority 에 저장하고 생성된 user_id 를 채운 User 를 리턴한다. 트랜잭션은 호출하는 쪽에서 묶는다. */
+    public Mono<User> save(User user) {
+        return databaseClient.sql("INSERT INTO USER (USERNAME, PASSWORD, NICKNAME, ACTIVATED) " +
+                        "VALUES (:username, :password, :nickname, :activated)")
+                .bind("username", user.getUsername())
+                .bind("password", user.getPassword())
+                .bind("nickname", user.getNickname())
+                .bind("activated", user.isActivated())
+                .filter(statement -> statement.returnGeneratedValues("USER_ID"))
+                .map((row, metadata) -> row.get("USER_ID", Long.class))
+                .one()
+                .flatMap(userId -> {
+                    user.setUserId(userId);
+                    return Flux.fromIterable(user.getAuthorities())
+                            .concatMap(authority -> databaseClient.sql("INSERT INTO USER_AUTHORITY (USER_ID, AUTHORITY_NAME) " +
+                                            "VALUES (:userId, :authorityName)")
+                                    .bind("userId", userId)
+                                    .bind("authorityName", authority.getAuthorityName())
+                                    .then())
+                            .then(Mono.just(user));
+                });
+    }
+
+    private static User toUser(List<UserAuthorityRow> rows) {
+        UserAuthorityRow first = rows.get(0);
+        return User.builder()
+                .userId(first.userId)
+                .username(first.username)
+                .password(first.password)
+                .nickname(first.nickname)
+                .activated(first.activated)
+                .authorities(rows.stream()
+                        .map(row -> row.authorityName)
+                        .filter(Objects::nonNull)
+                        .map(authorityName -> Authority.builder().authorityName(authorityName).build())
+                        .collect(Collectors.toCollection(HashSet::new)))
+                .build();
+    }
+
+    /** 조인 결과 한 행 */
+    private static class UserAuthorityRow {
+        private final Long userId;
+        private final String username;
+        private final String password;
+        private final String nickname;
+        private final boolean activated;
+        private final String authorityName;
+
+        private UserAuthorityRow(Long userId, String username, String password, String nickname,
+                                 boolean activated, String authorityName) {
+            this.userId = userId;
+            this.username = username;
+            this.password = password;
+            this.nickname = nickname;
+            this.activated = activated;
+            this.authorityName = authorityName;
+        }
+    }
+}
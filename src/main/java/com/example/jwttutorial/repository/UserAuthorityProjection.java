@@ -0,0 +1,14 @@
+package com.example.jwttutorial.repository;
+
+/**
+ * 조회 전용 API 에서 User 엔티티를 로딩하지 않고 필요한 컬럼만 바로 읽어오기 위한 Projection
+ * user 와 authority 를 조인한 한 행(username, nickname, authorityName)에 해당한다.
+ */
+public interface UserAuthorityProjection {
+
+    String getUsername();
+
+    String getNickname();
+
+    String getAuthorityName();
+}
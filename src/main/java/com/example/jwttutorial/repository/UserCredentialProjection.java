@@ -0,0 +1,16 @@
+package com.example.jwttutorial.repository;
+
+/**
+ * 로그인(CustomUserDetailsService)에서 User 엔티티를 로딩하지 않고 인증에 필요한 컬럼만 바로 읽어오기 위한 Projection
+ * user 와 authority 를 조인한 한 행(username, password, activated, authorityName)에 해당한다.
+ */
+public interface UserCredentialProjection {
+
+    String getUsername();
+
+    String getPassword();
+
+    boolean isActivated();
+
+    String getAuthorityName();
+}
@@ -4,12 +4,39 @@ package com.example.jwttutorial.repository;
 import com.example.jwttutorial.entity.User;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
+/**
+ * 조회 메소드들은 service 에서 @Transactional 없이(SingleFlight 로 합친 leader 만) 호출하므로
+ * 인터페이스에 선언한 쿼리 메소드마다 readOnly 트랜잭션을 직접 건다.
+ */
 public interface UserRepository extends JpaRepository<User, Long> {
     /** @EntityGraph 는 쿼리가 수행이 될때 Lazy가 아닌 Eager조회로, authorities 정보를 같이 가져온다. */
     @EntityGraph(attributePaths = "authorities")
     /** username을 기준으로 user정보를 가져올 때 권한 정보고 같이 가져오는 메소드 */
+    @Transactional(readOnly = true)
     Optional<User> findOneWithAuthoritiesByUsername(String username);
+
+    /**
+     * 조회 전용 메소드, 엔티티 대신 username, nickname, 권한명만 한번의 쿼리로 가져온다.
+     * 영속성 컨텍스트에 올라가지 않으므로 스냅샷/더티체킹 비용이 없고, 권한 수 만큼의 행은 UserService 에서 하나의 UserDto 로 합친다.
+     */
+    @Query("select u.username as username, u.nickname as nickname, a.authorityName as authorityName " +
+            "from User u left join u.authorities a where u.username = :username")
+    @Transactional(readOnly = true)
+    List<UserAuthorityProjection> findProjectionsByUsername(@Param("username") String username);
+
+    /**
+     * 로그인 전용 메소드, 엔티티 대신 username, password, 활성화 여부, 권한명만 한번의 쿼리로 가져온다.
+     * 권한 수 만큼의 행은 CustomUserDetailsService 에서 하나의 UserDetails 로 합친다.
+     */
+    @Query("select u.username as username, u.password as password, u.activated as activated, a.authorityName as authorityName " +
+            "from User u left join u.authorities a where u.username = :username")
+    @Transactional(readOnly = true)
+    List<UserCredentialProjection> findCredentialsByUsername(@Param("username") String username);
 }
@@ -0,0 +1,33 @@
+package com.example.jwttutorial.service;
+
+import com.example.jwttutorial.entity.Authority;
+import com.example.jwttutorial.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 유저의 로그인 정보(password, 활성화 여부, 권한)가 바뀌었을 때 발행하는 이벤트
+ * CredentialIndexService 가 트랜잭션 커밋 후에 받아서 change log 에 쌓고, credential index 에 증분 반영한다.
+ */
+@Getter
+@AllArgsConstructor
+public class CredentialChangedEvent {
+
+    private final String username;
+    private final String password;
+    private final boolean activated;
+    private final Set<String> authorityNames;
+
+    public static CredentialChangedEvent from(User user) {
+        return new CredentialChangedEvent(
+                user.getUsername(),
+                user.getPassword(),
+                user.isActivated(),
+                user.getAuthorities().stream()
+                        .map(Authority::getAuthorityName)
+                        .collect(Collectors.toSet()));
+    }
+}
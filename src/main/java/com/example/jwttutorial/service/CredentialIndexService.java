@@ -0,0 +1,359 @@
+package com.example.jwttutorial.service;
+
+import com.example.jwttutorial.repository.CredentialIndexFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * 로그인 조회용 read-only credential index 관리 (credential-index.enabled=true 일때만 등록)
+ * user / user_authority 테이블로 CredentialIndexFile 을 만들고, 회원가입 등으로 바뀐 정보는 change log 에 쌓았다가
+ * refresh 에서 작은 on-heap overlay 에 반영한다. 조회는 overlay 를 먼저 보고, 없으면 index 파일을 본다.
+ * overlay 가 compact-threshold 를 넘으면 그때만 index 파일을 복사한 새 파일에 합치고(compaction) overlay 를 비운다.
+ * overlay 와 index 파일은 하나의 Snapshot 으로 묶어서 AtomicReference 로 한번에 교체하므로 조회하는 쪽은 lock 이 필요없다.
+ *
+ * 교체된 index 파일은 읽고 있는 요청이 모두 끝난 뒤(참조 수가 0 이 되면) mapping 을 해제하고 삭제한다.
+ * 종료할 때는 현재 index 파일도 같은 방식으로 해제하고, 비정상 종료로 남은 파일은 다음 기동의 initialize 에서 지운다.
+ */
+@Service
+@ConditionalOnProperty(name = "credential-index.enabled", havingValue = "true")
+public class CredentialIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CredentialIndexService.class);
+
+    private static final String FILE_PREFIX = "credential-index-";
+    private static final String FILE_SUFFIX = ".bin";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path directory;
+    private final int compactThreshold;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final Queue<CredentialChangedEvent> changeLog = new ConcurrentLinkedQueue<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /** bcrypt 해시가 저장되므로 공용 tmpdir 같은 기본값 없이 credential-index.directory 를 반드시 지정해야 한다. */
+    public CredentialIndexService(
+            JdbcTemplate jdbcTemplate,
+            @Value("${credential-index.directory}") String directory,
+            @Value("${credential-index.compact-threshold:256}") int compactThreshold) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.directory = Paths.get(directory);
+        this.compactThreshold = compactThreshold;
+    }
+
+    /** data.sql 까지 적재된 후에 전체 index 를 만든다. 이전 실행에서 지우지 못한 index 파일은 먼저 삭제 */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() throws IOException {
+        CredentialIndexFile.createDirectories(directory);
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path path : stale) {
+                Files.deleteIfExists(path);
+                logger.info("이전 credential index 파일을 삭제했습니다. file: {}", path);
+            }
+        }
+        rebuild();
+    }
+
+    /**
+     * 현재 index 파일을 내려놓는다. 읽고 있는 요청이 있으면 그 요청이 끝날 때 mapping 을 해제하고 삭제한다.
+     * 이후 조회는 null (DB 로 fallback)
+     */
+    @PreDestroy
+    public synchronized void close() {
+        Snapshot previous = current.getAndSet(null);
+        if (previous != null) {
+            previous.mapping.release();
+        }
+    }
+
+    /** 커밋된 변경만 change log 에 쌓는다. 반영은 refresh 에서 모아서 처리 */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onCredentialChanged(CredentialChangedEvent event) {
+        changeLog.add(event);
+    }
+
+    /**
+     * username 에 해당하는 UserDetails 를 overlay / index 에서 만들어 리턴, 둘 다 없으면 null (호출하는 쪽에서 DB 로 fallback)
+     * 아직 반영되지 않은 변경이나 slot 에 맞지 않아 index 되지 않은 유저도 null 이 되므로 DB 조회로 처리된다.
+     * 비활성화 유저는 CustomUserDetailsService 와 같이 DisabledException
+     *
+     * index 파일에서 slot 을 찾는 CredentialIndexFile.find 는 할당이 없지만, 찾은 뒤에는 password String 과
+     * UserDetails 를 만들어서 리턴하므로 조회마다 할당이 있다. (권한 목록만 bitmask 별로 재사용)
+     */
+    public UserDetails loadUserByUsername(String username) {
+        while (true) {
+            Snapshot snapshot = current.get();
+            if (snapshot == null) {
+                return null;
+            }
+
+            /** 최근 변경은 overlay 에 있으므로 index 파일보다 먼저 확인 */
+            CredentialChangedEvent changed = snapshot.overlay.get(username);
+            if (changed != null) {
+                if (!changed.isActivated()) {
+                    throw new DisabledException(username + " -> 활성화되어 있지 않습니다.");
+                }
+                return new org.springframework.security.core.userdetails.User(username,
+                        changed.getPassword(),
+                        changed.getAuthorityNames().stream()
+                                .map(SimpleGrantedAuthority::new)
+                                .collect(Collectors.toList()));
+            }
+
+            /** 읽는 동안 mapping 이 해제되지 않도록 참조를 잡는다. 이미 해제된 파일이면 교체된 Snapshot 으로 다시 시도 */
+            Mapping mapping = snapshot.mapping;
+            if (!mapping.acquire()) {
+                continue;
+            }
+            try {
+                CredentialIndexFile file = mapping.file;
+                int slot = file.find(username);
+                if (slot < 0) {
+                    return null;
+                }
+                if (!file.isActivated(slot)) {
+                    throw new DisabledException(username + " -> 활성화되어 있지 않습니다.");
+                }
+                return new org.springframework.security.core.userdetails.User(username,
+                        file.password(slot),
+                        mapping.authorities(file.authorityMask(slot)));
+            } finally {
+                mapping.release();
+            }
+        }
+    }
+
+    /**
+     * change log 를 overlay 에 반영하고 교체, overlay 가 compact-threshold 를 넘으면 index 파일에 합친다.
+     * index 파일에 공간이 모자라면 DB 에서 다시 만든다.
+     */
+    @Scheduled(fixedDelayString = "${credential-index.refresh-interval-ms:1000}")
+    public synchronized void refresh() throws IOException {
+        Snapshot snapshot = current.get();
+        if (snapshot == null || changeLog.isEmpty()) {
+            return;
+        }
+
+        /** overlay 는 작게 유지되므로 교체할 때마다 복사해서 만든다. (조회하는 쪽은 변경되지 않는 Map 만 본다.) */
+        Map<String, CredentialChangedEvent> overlay = new HashMap<>(snapshot.overlay);
+        int changes = 0;
+        for (CredentialChangedEvent event; (event = changeLog.poll()) != null; changes++) {
+            overlay.put(event.getUsername(), event);
+        }
+
+        if (overlay.size() < compactThreshold) {
+            swap(new Snapshot(snapshot.mapping, Collections.unmodifiableMap(overlay)));
+            logger.debug("credential index overlay 에 {} 건의 변경을 반영했습니다. overlay: {}", changes, overlay.size());
+            return;
+        }
+        compact(snapshot, overlay);
+    }
+
+    /** overlay 를 현재 index 파일의 복사본에 합치고 교체 */
+    private void compact(Snapshot snapshot, Map<String, CredentialChangedEvent> overlay) throws IOException {
+        CredentialIndexFile file = snapshot.mapping.file;
+        if (!file.hasRoomFor(overlay.size())) {
+            /** 커밋 후에 쌓인 변경이므로 DB 에서 다시 만들면 모두 포함된다. */
+            rebuild();
+            return;
+        }
+
+        CredentialIndexFile next = file.copyTo(nextPath());
+        /** slot 에 넣을 수 없는 변경은 overlay 에 남겨서 index 파일의 이전 정보가 조회되지 않도록 한다. */
+        Map<String, CredentialChangedEvent> remaining = new HashMap<>();
+        for (CredentialChangedEvent change : overlay.values()) {
+            if (!next.put(change.getUsername(), change.getPassword(), change.isActivated(), change.getAuthorityNames())) {
+                remaining.put(change.getUsername(), change);
+            }
+        }
+        swap(new Snapshot(new Mapping(next, snapshot.mapping.authoritiesByMask), Collections.unmodifiableMap(remaining)));
+        logger.debug("credential index overlay {} 건을 새 index 파일에 합쳤습니다. overlay 에 남은 변경: {}",
+                overlay.size() - remaining.size(), remaining.size());
+    }
+
+    /** user / user_authority 전체를 읽어서 새 index 를 만들고 교체 */
+    public synchronized void rebuild() throws IOException {
+        List<String> authorityNames = jdbcTemplate.queryForList(
+                "SELECT AUTHORITY_NAME FROM AUTHORITY ORDER BY AUTHORITY_NAME", String.class);
+        Integer userCount = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM USER", Integer.class);
+
+        CredentialIndexFile next = CredentialIndexFile.create(nextPath(), userCount == null ? 0 : userCount, authorityNames);
+
+        /** user_id 순으로 정렬된 조인 결과를 한 행씩 읽으면서 같은 유저의 권한을 모아서 저장 (전체를 heap 에 올리지 않음) */
+        UserRows rows = new UserRows(next);
+        jdbcTemplate.query("SELECT U.USER_ID, U.USERNAME, U.PASSWORD, U.ACTIVATED, UA.AUTHORITY_NAME " +
+                "FROM USER U LEFT JOIN USER_AUTHORITY UA ON U.USER_ID = UA.USER_ID ORDER BY U.USER_ID", rows::add);
+        rows.flush();
+
+        /** slot 에 맞지 않아 index 되지 않은 유저는 DB 로 fallback 되므로 overlay 는 비운다. */
+        swap(new Snapshot(new Mapping(next, new ConcurrentHashMap<>()), Collections.emptyMap()));
+        logger.info("credential index 를 만들었습니다. users: {}, file: {}", next.size(), next.getPath());
+    }
+
+    /** Snapshot 을 교체하고, index 파일이 바뀌었으면 이전 파일은 읽는 요청이 끝나는대로 해제되도록 한다. */
+    private void swap(Snapshot next) {
+        Snapshot previous = current.getAndSet(next);
+        if (previous != null && previous.mapping != next.mapping) {
+            previous.mapping.release();
+        }
+    }
+
+    private Path nextPath() {
+        return directory.resolve(FILE_PREFIX + generation.incrementAndGet() + FILE_SUFFIX);
+    }
+
+    /** 현재 index 파일의 Mapping, 테스트에서 교체 전후의 참조 수를 확인할 때 사용 */
+    Mapping currentMapping() {
+        Snapshot snapshot = current.get();
+        return snapshot == null ? null : snapshot.mapping;
+    }
+
+    /** 아직 index 파일에 합쳐지지 않은 overlay 건수 */
+    int overlaySize() {
+        Snapshot snapshot = current.get();
+        return snapshot == null ? 0 : snapshot.overlay.size();
+    }
+
+    /** 현재 index 파일과 overlay (overlay 만 바뀐 경우 같은 Mapping 을 공유한다.) */
+    private static class Snapshot {
+        private final Mapping mapping;
+        private final Map<String, CredentialChangedEvent> overlay;
+
+        private Snapshot(Mapping mapping, Map<String, CredentialChangedEvent> overlay) {
+            this.mapping = mapping;
+            this.overlay = overlay;
+        }
+    }
+
+    /**
+     * index 파일과, 권한 bitmask 별로 만들어 둔 GrantedAuthority 목록 (조회마다 새로 만들지 않도록 재사용)
+     * 참조 수는 현재 Snapshot 이 1 을 가지고, 조회하는 요청이 읽는 동안 1 씩 더한다.
+     * 교체되어 0 이 되면 더이상 읽는 곳이 없으므로 mapping 을 해제하고 파일을 삭제한다.
+     */
+    static class Mapping {
+        private final CredentialIndexFile file;
+        private final Map<Long, List<GrantedAuthority>> authoritiesByMask;
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        private Mapping(CredentialIndexFile file, Map<Long, List<GrantedAuthority>> authoritiesByMask) {
+            this.file = file;
+            this.authoritiesByMask = authoritiesByMask;
+        }
+
+        Path getPath() {
+            return file.getPath();
+        }
+
+        /** 이미 해제된(참조 수 0) 파일이면 false */
+        boolean acquire() {
+            while (true) {
+                int count = references.get();
+                if (count == 0) {
+                    return false;
+                }
+                if (references.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release() {
+            if (references.decrementAndGet() == 0) {
+                file.close();
+                try {
+                    Files.deleteIfExists(file.getPath());
+                } catch (IOException e) {
+                    logger.warn("이전 credential index 파일을 삭제하지 못했습니다. file: {}", file.getPath(), e);
+                }
+            }
+        }
+
+        private List<GrantedAuthority> authorities(long mask) {
+            List<GrantedAuthority> authorities = authoritiesByMask.get(mask);
+            if (authorities != null) {
+                return authorities;
+            }
+            List<GrantedAuthority> created = new ArrayList<>();
+            List<String> names = file.getAuthorityNames();
+            for (int bit = 0; bit < names.size(); bit++) {
+                if ((mask & (1L << bit)) != 0) {
+                    created.add(new SimpleGrantedAuthority(names.get(bit)));
+                }
+            }
+            authoritiesByMask.putIfAbsent(mask, Collections.unmodifiableList(created));
+            return authoritiesByMask.get(mask);
+        }
+    }
+
+    /** 같은 USER_ID 의 연속된 행을 모아서 index 에 저장 */
+    private static class UserRows {
+        private final CredentialIndexFile file;
+        private Long userId;
+        private String username;
+        private String password;
+        private boolean activated;
+        private final Set<String> authorityNames = new HashSet<>();
+
+        private UserRows(CredentialIndexFile file) {
+            this.file = file;
+        }
+
+        private void add(ResultSet resultSet) throws SQLException {
+            long rowUserId = resultSet.getLong("USER_ID");
+            if (userId == null || userId != rowUserId) {
+                flush();
+                userId = rowUserId;
+                username = resultSet.getString("USERNAME");
+                password = resultSet.getString("PASSWORD");
+                activated = resultSet.getBoolean("ACTIVATED");
+            }
+            String authorityName = resultSet.getString("AUTHORITY_NAME");
+            if (authorityName != null) {
+                authorityNames.add(authorityName);
+            }
+        }
+
+        private void flush() {
+            if (userId != null) {
+                file.put(username, password, activated, authorityNames);
+                authorityNames.clear();
+            }
+        }
+    }
+}
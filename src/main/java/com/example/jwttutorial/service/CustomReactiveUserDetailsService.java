@@ -0,0 +1,30 @@
+package com.example.jwttutorial.service;
+
+import com.example.jwttutorial.repository.ReactiveUserRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * reactive 모드에서 CustomUserDetailsService 역할을 하는 ReactiveUserDetailsService 구현
+ * R2DBC 로 유저정보와 권한정보를 가져와서 userdetails.User 객체로 만들어 리턴한다.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class CustomReactiveUserDetailsService implements ReactiveUserDetailsService {
+    private final ReactiveUserRepository reactiveUserRepository;
+
+    public CustomReactiveUserDetailsService(ReactiveUserRepository reactiveUserRepository) {
+        this.reactiveUserRepository = reactiveUserRepository;
+    }
+
+    @Override
+    public Mono<UserDetails> findByUsername(String username) {
+        return reactiveUserRepository.findOneWithAuthoritiesByUsername(username)
+                .switchIfEmpty(Mono.error(() -> new UsernameNotFoundException(username + " -> 데이터베이스에서 찾을 수 없습니다.")))
+                .map(user -> CustomUserDetailsService.createUser(username, user));
+    }
+}
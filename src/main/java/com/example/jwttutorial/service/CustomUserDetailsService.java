@@ -1,16 +1,20 @@
 package com.example.jwttutorial.service;
 
 import com.example.jwttutorial.entity.User;
+import com.example.jwttutorial.repository.UserCredentialProjection;
 import com.example.jwttutorial.repository.UserRepository;
+import com.example.jwttutorial.util.SingleFlight;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -19,27 +23,72 @@ import java.util.stream.Collectors;
 @Component("userDetailsService")
 public class CustomUserDetailsService implements UserDetailsService {
     private final UserRepository userRepository;
+    private final CredentialIndexService credentialIndexService;
+    private final SingleFlight<String, UserDetails> userDetailsSingleFlight;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    /** credential-index.enabled=true 일때만 CredentialIndexService 가 주입되고, 아니면 null */
+    public CustomUserDetailsService(UserRepository userRepository,
+                                    ObjectProvider<CredentialIndexService> credentialIndexService,
+                                    SingleFlight<String, UserDetails> userDetailsSingleFlight) {
         this.userRepository = userRepository;
+        this.credentialIndexService = credentialIndexService.getIfAvailable();
+        this.userDetailsSingleFlight = userDetailsSingleFlight;
     }
 
     /**
      * 로그인시에 DB 에서 유저정보와 권한정보를 가져오게 된다.
      * 해당 정보를 기반으로 userDetails.User 객체를 생성해서 리턴한다.
+     *
+     * 같은 username 으로 동시에 들어온 로그인은 SingleFlight 로 DB 조회를 한번만 실행한다.
+     * 기다리는 요청이 트랜잭션(커넥션)을 잡고 있지 않도록 @Transactional 은 걸지 않고, 조회는 UserRepository 메소드에 선언한 readOnly 트랜잭션에서 수행
+     * 엔티티 대신 인증에 필요한 컬럼만 Projection 으로 가져오므로 영속성 컨텍스트에 User / Authority 를 올리지 않는다.
      */
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(final String username) {
-        return userRepository.findOneWithAuthoritiesByUsername(username)
-                .map(user -> createUser(username, user))
-                .orElseThrow(() -> new UsernameNotFoundException(username + " -> 데이터베이스에서 찾을 수 없습니다."));
+        /** credential index 에 있으면 DB 를 거치지 않고 바로 리턴 */
+        if (credentialIndexService != null) {
+            UserDetails indexed = credentialIndexService.loadUserByUsername(username);
+            if (indexed != null) {
+                return indexed;
+            }
+        }
+
+        UserDetails shared = userDetailsSingleFlight.load(username,
+                () -> createUser(username, userRepository.findCredentialsByUsername(username)));
+
+        /** 인증 후 eraseCredentials 로 password 가 지워지므로, 합쳐진 요청들이 같은 객체를 공유하지 않도록 복사해서 리턴 */
+        return org.springframework.security.core.userdetails.User.withUserDetails(shared).build();
     }
 
-    /** entity - User 정보가 활성화 되어있다면 해당 정보를 받아서 userdetails - User 에 넣어서 return 한다.*/
-    private org.springframework.security.core.userdetails.User createUser(String username, User user) {
+    /** user - authority 조인 결과 행들로 userdetails - User 를 만든다. 행이 없으면 UsernameNotFoundException */
+    private static org.springframework.security.core.userdetails.User createUser(String username,
+                                                                                 List<UserCredentialProjection> rows) {
+        if (rows.isEmpty()) {
+            throw new UsernameNotFoundException(username + " -> 데이터베이스에서 찾을 수 없습니다.");
+        }
+        UserCredentialProjection first = rows.get(0);
+        if (!first.isActivated()) {
+            throw new DisabledException(username + " -> 활성화되어 있지 않습니다.");
+        }
+        List<GrantedAuthority> grantedAuthorities = rows.stream()
+                .map(UserCredentialProjection::getAuthorityName)
+                .filter(Objects::nonNull)
+                .distinct()
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toList());
+        return new org.springframework.security.core.userdetails.User(first.getUsername(),
+                first.getPassword(),
+                grantedAuthorities);
+    }
+
+    /**
+     * entity - User 정보가 활성화 되어있다면 해당 정보를 받아서 userdetails - User 에 넣어서 return 한다.
+     * 비활성화 유저는 DisabledException (AuthenticationException) 으로 servlet / reactive 모두 401 로 처리된다.
+     * reactive 모드의 CustomReactiveUserDetailsService 에서 사용한다. (R2DBC 조회 결과를 User 로 합친 뒤 변환)
+     */
+    static org.springframework.security.core.userdetails.User createUser(String username, User user) {
         if (!user.isActivated()) {
-            throw new RuntimeException(username + " -> 활성화되어 있지 않습니다.");
+            throw new DisabledException(username + " -> 활성화되어 있지 않습니다.");
         }
         List<GrantedAuthority> grantedAuthorities = user.getAuthorities().stream()
                 .map(authority -> new SimpleGrantedAuthority(authority.getAuthorityName()))
@@ -0,0 +1,89 @@
+package com.example.jwttutorial.service;
+
+import com.example.jwttutorial.dto.UserDto;
+import com.example.jwttutorial.entity.Authority;
+import com.example.jwttutorial.entity.User;
+import com.example.jwttutorial.repository.ReactiveUserRepository;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.Collections;
+
+/**
+ * reactive 모드에서 UserService 역할을 하는 서비스
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserService {
+    private final ReactiveUserRepository reactiveUserRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final Scheduler bcryptScheduler;
+    private final TransactionalOperator transactionalOperator;
+
+    public ReactiveUserService(ReactiveUserRepository reactiveUserRepository,
+                               PasswordEncoder passwordEncoder,
+                               @Qualifier("bcryptScheduler") Scheduler bcryptScheduler,
+                               ConnectionFactory connectionFactory) {
+        this.reactiveUserRepository = reactiveUserRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.bcryptScheduler = bcryptScheduler;
+        /** R2dbcTransactionManager 는 JPA 쪽과 충돌하지 않도록 빈으로 등록하지 않고 여기서만 사용 */
+        this.transactionalOperator = TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+    }
+
+    /**
+     * 이미 가입된 유저인지 먼저 확인하고, BCrypt 인코딩은 트랜잭션을 시작하기 전에 bcryptScheduler 에서 수행한다.
+     * 트랜잭션(= pool 의 R2DBC 커넥션)은 중복 확인과 insert 동안만 잡으므로, 가입이 몰려서 BCrypt 가 큐에 쌓여도 pool 을 점유하지 않는다.
+     */
+    public Mono<UserDto> signup(UserDto userDto) {
+        Mono<User> duplicated = reactiveUserRepository.findOneWithAuthoritiesByUsername(userDto.getUsername())
+                .flatMap(existing -> Mono.error(new RuntimeException("이미 가입되어 있는 유저입니다.")));
+
+        /** BCrypt 는 event loop 를 막지 않도록 bcryptScheduler 에서 수행 */
+        Mono<User> user = Mono.fromCallable(() -> passwordEncoder.encode(userDto.getPassword()))
+                .subscribeOn(bcryptScheduler)
+                .map(encodedPassword -> User.builder()
+                        .username(userDto.getUsername())
+                        .password(encodedPassword)
+                        .nickname(userDto.getNickname())
+                        .authorities(Collections.singleton(Authority.builder()
+                                .authorityName("ROLE_USER")
+                                .build()))
+                        .activated(true)
+                        .build());
+
+        /** 인코딩하는 동안 같은 username 으로 가입될 수 있으므로 트랜잭션 안에서 한번 더 확인한 뒤 insert */
+        return duplicated
+                .switchIfEmpty(user)
+                .flatMap(newUser -> reactiveUserRepository.findOneWithAuthoritiesByUsername(newUser.getUsername())
+                        .flatMap(existing -> Mono.<User>error(new RuntimeException("이미 가입되어 있는 유저입니다.")))
+                        .switchIfEmpty(Mono.defer(() -> reactiveUserRepository.save(newUser)))
+                        .as(transactionalOperator::transactional))
+                .map(UserDto::from);
+    }
+
+    // username을 기준으로 정보를 가져옴
+    public Mono<UserDto> getUserWithAuthorities(String username) {
+        return reactiveUserRepository.findOneWithAuthoritiesByUsername(username)
+                .map(UserDto::from);
+    }
+
+    // ReactiveSecurityContextHolder 에 저장된 username의 정보만 가져옴
+    public Mono<UserDto> getMyUserWithAuthorities() {
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .map(Authentication::getName)
+                .flatMap(reactiveUserRepository::findOneWithAuthoritiesByUsername)
+                .map(UserDto::from);
+    }
+}
@@ -2,13 +2,20 @@ package com.example.jwttutorial.service;
 
 
 import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
+import com.example.jwttutorial.dto.AuthorityDto;
 import com.example.jwttutorial.dto.UserDto;
 import com.example.jwttutorial.entity.Authority;
 import com.example.jwttutorial.entity.User;
+import com.example.jwttutorial.repository.UserAuthorityProjection;
 import com.example.jwttutorial.repository.UserRepository;
 import com.example.jwttutorial.util.SecurityUtil;
+import com.example.jwttutorial.util.SingleFlight;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,10 +24,15 @@ import org.springframework.transaction.annotation.Transactional;
 public class UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SingleFlight<String, UserDto> userDtoSingleFlight;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                       ApplicationEventPublisher eventPublisher, SingleFlight<String, UserDto> userDtoSingleFlight) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
+        this.userDtoSingleFlight = userDtoSingleFlight;
     }
 
     @Transactional
@@ -43,18 +55,50 @@ public class UserService {
                 .activated(true)
                 .build();
 
-        return UserDto.from(userRepository.save(user));
+        User savedUser = userRepository.save(user);
+
+        /** credential index 가 켜져 있으면 커밋 후에 새 유저를 index 에 반영한다. */
+        eventPublisher.publishEvent(CredentialChangedEvent.from(savedUser));
+
+        return UserDto.from(savedUser);
     }
 
-    // username을 기준으로 정보를 가져옴
-    @Transactional(readOnly = true)
+    // username을 기준으로 정보를 가져옴 (엔티티 대신 Projection 으로 조회)
     public UserDto getUserWithAuthorities(String username) {
-        return UserDto.from(userRepository.findOneWithAuthoritiesByUsername(username).orElse(null));
+        return loadUserDto(username);
     }
 
-    // SecurityContext에 저장된 username의 정보만 가져옴
-    @Transactional(readOnly = true)
+    // SecurityContext에 저장된 username의 정보만 가져옴 (엔티티 대신 Projection 으로 조회)
     public UserDto getMyUserWithAuthorities() {
-        return UserDto.from(SecurityUtil.getCurrentUsername().flatMap(userRepository::findOneWithAuthoritiesByUsername).orElse(null));
+        return SecurityUtil.getCurrentUsername()
+                .map(this::loadUserDto)
+                .orElse(null);
+    }
+
+    /**
+     * 조회 API 는 같은 username 으로 동시에 들어온 요청을 SingleFlight 로 합쳐서 쿼리를 한번만 실행한다.
+     * 기다리는 요청이 트랜잭션(커넥션)을 잡고 있지 않도록 @Transactional 은 걸지 않고, 쿼리는 UserRepository 메소드에 선언한 readOnly 트랜잭션에서 수행
+     * 합쳐진 요청들은 같은 UserDto 를 받으므로 응답으로만 사용하고 수정하지 않는다.
+     */
+    private UserDto loadUserDto(String username) {
+        return userDtoSingleFlight.load(username, () -> toUserDto(userRepository.findProjectionsByUsername(username)));
+    }
+
+    /** user - authority 조인 결과 행들을 하나의 UserDto 로 합친다. 조회 결과가 없으면 null 을 리턴 */
+    private static UserDto toUserDto(List<UserAuthorityProjection> rows) {
+        if (rows.isEmpty()) {
+            return null;
+        }
+
+        UserAuthorityProjection first = rows.get(0);
+        return UserDto.builder()
+                .username(first.getUsername())
+                .nickname(first.getNickname())
+                .authorityDtoSet(rows.stream()
+                        .map(UserAuthorityProjection::getAuthorityName)
+                        .filter(Objects::nonNull)
+                        .map(authorityName -> AuthorityDto.builder().authorityName(authorityName).build())
+                        .collect(Collectors.toSet()))
+                .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,117 @@
+package com.example.jwttutorial.util;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 같은 key 로 동시에 들어온 조회를 하나로 합치는 single-flight
+ * 먼저 들어온 요청(leader)만 loader 를 실행하고, 그 사이에 들어온 같은 key 의 요청들은 leader 의 결과(또는 예외)를 같이 받는다.
+ * 결과는 캐시하지 않으므로 leader 의 조회가 끝나면 다음 요청은 다시 loader 를 실행한다.
+ *
+ * 기다리는 쪽은 timeout 까지만 기다리고 SingleFlightTimeoutException 을 던진다.
+ * MeterBinder 로 등록하면 single.flight.* 메트릭(loads, coalesced, timeouts, failures, in.flight)을 name 태그로 제공한다.
+ */
+public class SingleFlight<K, V> implements MeterBinder {
+
+    private final String name;
+    private final long timeoutMillis;
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public SingleFlight(String name, long timeoutMillis) {
+        this.name = name;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            coalesced.increment();
+            return await(key, existing);
+        }
+
+        /** leader 는 자기 스레드(자기 트랜잭션/SecurityContext)에서 loader 를 실행하고 결과를 기다리는 쪽에 전달 */
+        loads.increment();
+        try {
+            V value = loader.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            failures.increment();
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private V await(K key, CompletableFuture<V> future) {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            throw new SingleFlightTimeoutException(name + " -> '" + key + "' 조회가 " + timeoutMillis + "ms 안에 끝나지 않았습니다.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SingleFlightTimeoutException(name + " -> '" + key + "' 조회를 기다리는 중 인터럽트 되었습니다.");
+        } catch (ExecutionException e) {
+            /** leader 에서 발생한 예외를 그대로 전달 (UsernameNotFoundException 등) */
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("single.flight.loads", loads, LongAdder::sum)
+                .description("loader 를 실제로 실행한 횟수")
+                .tag("name", name)
+                .register(registry);
+        FunctionCounter.builder("single.flight.coalesced", coalesced, LongAdder::sum)
+                .description("진행중인 조회에 합쳐진 요청 수")
+                .tag("name", name)
+                .register(registry);
+        FunctionCounter.builder("single.flight.timeouts", timeouts, LongAdder::sum)
+                .description("진행중인 조회를 기다리다 timeout 된 요청 수")
+                .tag("name", name)
+                .register(registry);
+        FunctionCounter.builder("single.flight.failures", failures, LongAdder::sum)
+                .description("loader 가 예외로 끝난 횟수")
+                .tag("name", name)
+                .register(registry);
+        Gauge.builder("single.flight.in.flight", inFlight, ConcurrentMap::size)
+                .description("현재 진행중인 조회 수")
+                .tag("name", name)
+                .register(registry);
+    }
+
+    /** 진행중인 조회를 timeout 안에 받지 못했을 때 */
+    public static class SingleFlightTimeoutException extends RuntimeException {
+        public SingleFlightTimeoutException(String message) {
+            super(message);
+        }
+    }
+}
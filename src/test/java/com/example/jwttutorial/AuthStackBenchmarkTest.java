@@ -0,0 +1,105 @@
+package com.example.jwttutorial;
+
+import com.example.jwttutorial.dto.LoginDto;
+import com.example.jwttutorial.dto.TokenDto;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * servlet 모드와 reactive 모드를 차례대로 띄워서 같은 부하(로그인, Token 으로 /api/user 조회)를 주고
+ * 처리량과 지연시간을 나란히 출력하는 벤치마크
+ * 일반 test 에서는 제외되고 ./gradlew benchmark 로만 실행된다.
+ */
+@Tag("benchmark")
+class AuthStackBenchmarkTest {
+
+    private static final int LOGIN_REQUESTS = 200;
+    private static final int USER_REQUESTS = 20_000;
+    private static final int CONCURRENCY = 256;
+
+    @Test
+    void compareServletAndReactive() {
+        List<String> results = new ArrayList<>();
+        results.add(run("servlet"));
+        results.add(run("reactive"));
+
+        System.out.println();
+        results.forEach(System.out::println);
+    }
+
+    private String run(String mode) {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(JwtTutorialApplication.class)
+                .properties("server.port=0", "spring.jpa.properties.hibernate.show_sql=false");
+        if ("reactive".equals(mode)) {
+            builder.profiles("reactive");
+        }
+
+        try (ConfigurableApplicationContext context = builder.run()) {
+            String port = context.getEnvironment().getProperty("local.server.port");
+            WebClient webClient = WebClient.create("http://localhost:" + port);
+
+            Mono<String> login = webClient.post().uri("/api/authenticate")
+                    .bodyValue(new LoginDto("admin", "admin"))
+                    .retrieve()
+                    .bodyToMono(TokenDto.class)
+                    .map(TokenDto::getToken);
+
+            /** warm-up */
+            String token = login.block();
+            assertThat(token).isNotEmpty();
+            measure(Flux.range(0, USER_REQUESTS).map(i -> userRequest(webClient, token)));
+
+            String loginResult = format(mode, "login", LOGIN_REQUESTS,
+                    measure(Flux.range(0, LOGIN_REQUESTS).map(i -> login.then())));
+            String userResult = format(mode, "GET /api/user", USER_REQUESTS,
+                    measure(Flux.range(0, USER_REQUESTS).map(i -> userRequest(webClient, token))));
+            return loginResult + "\n" + userResult;
+        }
+    }
+
+    private static Mono<Void> userRequest(WebClient webClient, String token) {
+        return webClient.get().uri("/api/user")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .retrieve()
+                .toBodilessEntity()
+                .then();
+    }
+
+    /** 요청들을 CONCURRENCY 만큼 동시에 보내고, 전체 소요시간(마지막 원소)과 요청별 지연시간(ns)을 리턴 */
+    private static List<Long> measure(Flux<Mono<Void>> requests) {
+        long start = System.nanoTime();
+        List<Long> latencies = requests
+                .flatMap(request -> Mono.fromSupplier(System::nanoTime)
+                        .flatMap(requestStart -> request.then(Mono.fromSupplier(() -> System.nanoTime() - requestStart))),
+                        CONCURRENCY)
+                .collectList()
+                .block();
+        List<Long> result = new ArrayList<>(latencies);
+        Collections.sort(result);
+        result.add(System.nanoTime() - start);
+        return result;
+    }
+
+    private static String format(String mode, String scenario, int count, List<Long> measured) {
+        long totalNanos = measured.get(measured.size() - 1);
+        List<Long> latencies = measured.subList(0, measured.size() - 1);
+        return String.format("%-8s %-14s %8.0f req/s  p50 %6.2f ms  p99 %6.2f ms",
+                mode, scenario,
+                count / (totalNanos / (double) TimeUnit.SECONDS.toNanos(1)),
+                latencies.get(latencies.size() / 2) / 1_000_000.0,
+                latencies.get((int) (latencies.size() * 0.99)) / 1_000_000.0);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.jwttutorial;
+
+import com.example.jwttutorial.config.FirstSuccessfulRequestRecorder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * faststart 프로필로 띄운 context 확인
+ * lazy-initialization (hot path 빈은 제외), deferred repository bootstrap, warm-up runner 등록과
+ * 첫 성공 요청 후 startup.first.successful.request Timer 가 기록되는지 확인한다.
+ * warm-up runner 가 실패하면 context 가 뜨지 않으므로 기동 자체가 warm-up 실행 확인이 된다.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:fast-startup-test",
+        "startup.warm-up.token-iterations=10",
+        "startup.warm-up.password-iterations=1",
+        "startup.exit-after-warm-up=false"
+})
+@ActiveProfiles("faststart")
+class FastStartupContextTest {
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void beansAreLazyExceptHotPath() {
+        assertThat(context.getEnvironment().getProperty("spring.main.lazy-initialization", Boolean.class)).isTrue();
+        assertThat(context.getBeanFactory().getBeanDefinition("helloController").isLazyInit()).isTrue();
+        assertThat(context.getBeanFactory().getBeanDefinition("tokenProvider").isLazyInit()).isFalse();
+    }
+
+    @Test
+    void repositoriesBootstrapDeferred() {
+        assertThat(context.getEnvironment().getProperty("spring.data.jpa.repositories.bootstrap-mode"))
+                .isEqualTo("deferred");
+        /** deferred 모드에서는 EntityManagerFactory 를 별도 스레드(bootstrap executor)에서 초기화한다. */
+        LocalContainerEntityManagerFactoryBean entityManagerFactory =
+                context.getBean("&entityManagerFactory", LocalContainerEntityManagerFactoryBean.class);
+        assertThat(entityManagerFactory.getBootstrapExecutor()).isNotNull();
+    }
+
+    @Test
+    void warmUpRunnerIsRegistered() {
+        assertThat(context.getBeansOfType(ApplicationRunner.class)).containsKey("warmUp");
+    }
+
+    @Test
+    void firstSuccessfulRequestIsRecordedOnce() {
+        ResponseEntity<String> unauthorized = restTemplate.getForEntity("/api/user", String.class);
+        assertThat(unauthorized.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+
+        for (int i = 0; i < 2; i++) {
+            ResponseEntity<String> response = restTemplate.getForEntity("/api/hello", String.class);
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        }
+
+        Timer timer = meterRegistry.get(FirstSuccessfulRequestRecorder.METRIC_NAME).timer();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(timer.totalTime(TimeUnit.MILLISECONDS)).isPositive();
+    }
+}
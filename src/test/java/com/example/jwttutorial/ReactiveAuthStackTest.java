@@ -0,0 +1,111 @@
+package com.example.jwttutorial;
+
+import com.example.jwttutorial.dto.LoginDto;
+import com.example.jwttutorial.dto.TokenDto;
+import com.example.jwttutorial.jwt.JwtFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * reactive 모드 (WebFlux + R2DBC) 로 띄운 뒤 로그인 -> Token 으로 /api/user 조회 -> Token 없이 401 까지 확인
+ * 비활성화 유저의 로그인은 servlet 모드와 같이 401, 회원가입한 유저는 바로 로그인할 수 있는지도 확인한다.
+ * 다른 테스트의 servlet 컨텍스트와 DB 를 공유하지 않도록 별도의 in-memory DB 이름을 사용한다.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactive-auth-test",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive-auth-test"
+})
+@ActiveProfiles("reactive")
+class ReactiveAuthStackTest {
+
+    /** data.sql 의 admin 과 같은 비밀번호(admin)의 bcrypt 해시 */
+    private static final String ADMIN_PASSWORD_HASH = "$2a$08$lDnHPz7eUkSi6ao14Twuau08mzhWrL4kyZGGU5xfiGALO/Vxd5DOi";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Test
+    void authenticateThenGetUser() {
+        TokenDto tokenDto = webTestClient.post().uri("/api/authenticate")
+                .bodyValue(new LoginDto("admin", "admin"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(JwtFilter.AUTHORIZATION_HEADER)
+                .expectBody(TokenDto.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(tokenDto).isNotNull();
+        assertThat(tokenDto.getToken()).isNotBlank();
+
+        webTestClient.get().uri("/api/user")
+                .header(JwtFilter.AUTHORIZATION_HEADER, "Bearer " + tokenDto.getToken())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.username").isEqualTo("admin")
+                .jsonPath("$.nickname").isEqualTo("admin");
+    }
+
+    @Test
+    void authenticateWithWrongPasswordIsUnauthorized() {
+        webTestClient.post().uri("/api/authenticate")
+                .bodyValue(new LoginDto("admin", "wrong-password"))
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void getUserWithoutTokenIsUnauthorized() {
+        webTestClient.get().uri("/api/user")
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void deactivatedUserIsUnauthorized() {
+        databaseClient.sql("MERGE INTO USER (USER_ID, USERNAME, PASSWORD, NICKNAME, ACTIVATED) KEY (USER_ID) " +
+                        "VALUES (100, 'deactivated', :password, 'deactivated', FALSE)")
+                .bind("password", ADMIN_PASSWORD_HASH)
+                .then()
+                .block();
+
+        webTestClient.post().uri("/api/authenticate")
+                .bodyValue(new LoginDto("deactivated", "admin"))
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void signupThenAuthenticate() {
+        /** UserDto 의 password 는 WRITE_ONLY 라서 직렬화되지 않으므로 Map 으로 보낸다. */
+        Map<String, String> signup = new HashMap<>();
+        signup.put("username", "reactive-user");
+        signup.put("password", "reactive-password");
+        signup.put("nickname", "reactive");
+
+        webTestClient.post().uri("/api/signup")
+                .bodyValue(signup)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.username").isEqualTo("reactive-user");
+
+        webTestClient.post().uri("/api/authenticate")
+                .bodyValue(new LoginDto("reactive-user", "reactive-password"))
+                .exchange()
+                .expectStatus().isOk();
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.jwttutorial.jwt;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import javax.servlet.FilterChain;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * JwtFilter.doFilter -> TokenProvider.getAuthentication 로 이어지는 요청 hot path 의
+ * 요청당 할당 바이트와 처리 시간을 측정해서, jwt-filter-budget.properties 의 예산을 넘으면 실패시키는 테스트
+ * 재발급이 꺼진 기본 경로와, 매 요청 재발급되는 경로(jwt.renewal.enabled)를 각각 측정한다.
+ *
+ * 할당 바이트는 머신에 관계없이 거의 일정하므로 일반 test 에서 확인하고,
+ * 처리 시간은 공유 CI 에서 편차가 크므로 benchmark 태그를 붙여 ./gradlew benchmark 에서만 확인한다.
+ * 측정은 JFR 없이 하고, 예산을 넘었을 때만 JFR 할당 기록을 켠 채로 한번 더 돌려서 상위 할당 위치를 실패 메시지에 출력한다.
+ */
+class JwtFilterBudgetTest {
+
+    private static final String SECRET =
+            "c2lsdmVybmluZS10ZWNoLXNwcmluZy1ib290LWp3dC10dXRvcmlhbC1zZWNyZXQtc2lsdmVybmluZS10ZWNoLXNwcmluZy1ib290LWp3dC10dXRvcmlhbC1zZWNyZXQK";
+
+    private static final int WARMUP_REQUESTS = 20_000;
+    private static final int MEASURED_REQUESTS = 20_000;
+    private static final int TOP_ALLOCATION_SITES = 10;
+    /** 할당 위치로 같이 출력할 프레임 수 (애플리케이션 / 라이브러리 첫 프레임부터) */
+    private static final int SITE_FRAMES = 3;
+
+    private static Properties budget;
+
+    private static final RouteTable ROUTE_TABLE = RouteTable.builder()
+            .route(RouteTable.Access.PUBLIC, "/api/hello", "/api/authenticate", "/api/signup")
+            .build();
+
+    /** 재발급시 다시 조회하는 유저, DB 대신 미리 만든 객체를 리턴 */
+    private static final UserDetails ADMIN = User.withUsername("admin")
+            .password("")
+            .authorities("ROLE_USER", "ROLE_ADMIN")
+            .build();
+
+    @BeforeAll
+    static void loadBudget() throws IOException {
+        budget = new Properties();
+        try (InputStream in = JwtFilterBudgetTest.class.getResourceAsStream("/jwt-filter-budget.properties")) {
+            budget.load(in);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilterStaysWithinAllocationBudget() throws Exception {
+        Requests requests = new Requests(false);
+
+        Measurement measurement = requests.measure();
+
+        assertAllocationWithinBudget("", requests, measurement);
+        assertThat(requests.response.getHeader(JwtFilter.AUTHORIZATION_HEADER)).isNull();
+    }
+
+    @Test
+    void doFilterWithRenewalStaysWithinAllocationBudget() throws Exception {
+        Requests requests = new Requests(true);
+
+        Measurement measurement = requests.measure();
+
+        assertAllocationWithinBudget("renewal.", requests, measurement);
+        assertThat(requests.response.getHeader(JwtFilter.AUTHORIZATION_HEADER)).startsWith("Bearer ");
+    }
+
+    @Test
+    @Tag("benchmark")
+    void doFilterStaysWithinTimeBudget() throws Exception {
+        Requests requests = new Requests(false);
+
+        assertTimeWithinBudget("", requests, requests.measure());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void doFilterWithRenewalStaysWithinTimeBudget() throws Exception {
+        Requests requests = new Requests(true);
+
+        assertTimeWithinBudget("renewal.", requests, requests.measure());
+    }
+
+    private static void assertAllocationWithinBudget(String prefix, Requests requests, Measurement measurement) {
+        String key = prefix + "allocated-bytes-per-request";
+        long allocatedBytesBudget = Long.parseLong(budget.getProperty(key));
+        report(key, measurement.allocatedPerRequest);
+
+        assertThat(measurement.authenticated).isEqualTo(MEASURED_REQUESTS);
+        assertThat(measurement.allocatedPerRequest)
+                .as(() -> "요청당 할당 바이트 " + measurement.allocatedPerRequest + " > 예산 " + allocatedBytesBudget
+                        + requests.topAllocationSites())
+                .isLessThanOrEqualTo(allocatedBytesBudget);
+    }
+
+    private static void assertTimeWithinBudget(String prefix, Requests requests, Measurement measurement) {
+        String key = prefix + "nanos-per-request";
+        long nanosBudget = Long.parseLong(budget.getProperty(key));
+        report(key, measurement.nanosPerRequest);
+
+        assertThat(measurement.authenticated).isEqualTo(MEASURED_REQUESTS);
+        assertThat(measurement.nanosPerRequest)
+                .as(() -> "요청당 처리 시간(ns) " + measurement.nanosPerRequest + " > 예산 " + nanosBudget
+                        + requests.topAllocationSites())
+                .isLessThanOrEqualTo(nanosBudget);
+    }
+
+    /** baseline 을 기준 머신의 측정값으로 갱신할 수 있도록 측정값을 baseline 과 같이 출력 */
+    private static void report(String key, long measured) {
+        String baseline = budget.getProperty(key + ".baseline", "");
+        System.out.println("JwtFilterBudgetTest " + key + "=" + measured
+                + " (baseline " + (baseline.isEmpty() ? "미측정" : baseline) + ")");
+    }
+
+    private static TokenProvider tokenProvider(boolean renewalEnabled) {
+        TokenProvider tokenProvider = new TokenProvider(SECRET, 86400, renewalEnabled, 2 * 86400, 600, 0, 604800);
+        tokenProvider.afterPropertiesSet();
+        return tokenProvider;
+    }
+
+    /** 실제 로그인 결과와 같은 형태(ROLE_USER, ROLE_ADMIN)의 Token 을 만들어서 사용 */
+    private static String bearerToken(TokenProvider tokenProvider) {
+        Authentication authentication = new UsernamePasswordAuthenticationToken("admin", null, Arrays.asList(
+                new SimpleGrantedAuthority("ROLE_USER"),
+                new SimpleGrantedAuthority("ROLE_ADMIN")));
+        return "Bearer " + tokenProvider.createToken(authentication);
+    }
+
+    /** 요청당 할당 바이트 / 처리 시간과 인증된 요청 수 */
+    private static class Measurement {
+        private final long allocatedPerRequest;
+        private final long nanosPerRequest;
+        private final int authenticated;
+
+        private Measurement(long allocatedPerRequest, long nanosPerRequest, int authenticated) {
+            this.allocatedPerRequest = allocatedPerRequest;
+            this.nanosPerRequest = nanosPerRequest;
+            this.authenticated = authenticated;
+        }
+    }
+
+    /**
+     * 측정할 JwtFilter 와 재사용하는 request / response / chain
+     * 측정값에 테스트용 객체 생성 비용이 섞이지 않도록 request / response / chain 은 재사용한다.
+     */
+    private static class Requests {
+        private final JwtFilter jwtFilter;
+        private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user");
+        private final MockHttpServletResponse response = new MockHttpServletResponse();
+        private final FilterChain filterChain = (servletRequest, servletResponse) -> { };
+
+        /** renewalEnabled 면 window 를 Token 유효기간보다 길게, interval 을 0 으로 해서 모든 요청이 재발급 경로를 타도록 한다. */
+        private Requests(boolean renewalEnabled) {
+            TokenProvider tokenProvider = tokenProvider(renewalEnabled);
+            this.jwtFilter = new JwtFilter(tokenProvider, ROUTE_TABLE, username -> ADMIN);
+            request.setServletPath("/api/user");
+            request.addHeader(JwtFilter.AUTHORIZATION_HEADER, bearerToken(tokenProvider));
+        }
+
+        /** JIT 이 충분히 돌 때까지 먼저 요청을 흘려보낸 뒤, JFR 같은 계측 없이 측정 */
+        private Measurement measure() throws Exception {
+            assertThat(run(WARMUP_REQUESTS)).isEqualTo(WARMUP_REQUESTS);
+
+            com.sun.management.ThreadMXBean threadMXBean =
+                    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long threadId = Thread.currentThread().getId();
+
+            long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+            long startNanos = System.nanoTime();
+            int authenticated = run(MEASURED_REQUESTS);
+            long elapsedNanos = System.nanoTime() - startNanos;
+            long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+            return new Measurement(allocated / MEASURED_REQUESTS, elapsedNanos / MEASURED_REQUESTS, authenticated);
+        }
+
+        /** 예산을 넘었을 때만 호출, JFR 할당 기록을 켠 채로 한번 더 돌려서 상위 할당 위치를 만든다. */
+        private String topAllocationSites() {
+            Path jfrFile = null;
+            try (Recording recording = new Recording()) {
+                jfrFile = Files.createTempFile("jwt-filter-budget", ".jfr");
+                recording.enable("jdk.ObjectAllocationInNewTLAB").withStackTrace();
+                recording.enable("jdk.ObjectAllocationOutsideTLAB").withStackTrace();
+                recording.start();
+                run(MEASURED_REQUESTS);
+                recording.stop();
+                recording.dump(jfrFile);
+                return JwtFilterBudgetTest.topAllocationSites(jfrFile);
+            } catch (Exception e) {
+                return "\n(JFR 기록을 만들지 못했습니다: " + e.getMessage() + ")";
+            } finally {
+                if (jfrFile != null) {
+                    jfrFile.toFile().delete();
+                }
+            }
+        }
+
+        /** count 번 요청을 보내고 SecurityContext 에 인증정보가 저장된 요청 수를 리턴 (측정 구간 안에서는 검증하지 않음) */
+        private int run(int count) throws Exception {
+            int authenticated = 0;
+            for (int i = 0; i < count; i++) {
+                jwtFilter.doFilter(request, response, filterChain);
+
+                if (SecurityContextHolder.getContext().getAuthentication() != null) {
+                    authenticated++;
+                }
+                SecurityContextHolder.clearContext();
+            }
+            return authenticated;
+        }
+    }
+
+    /**
+     * JFR 파일의 할당 이벤트를 java. / jdk. / sun. 패키지가 아닌 첫번째 프레임(할당을 일으킨 애플리케이션 / 라이브러리 코드) 기준으로
+     * 그 아래 SITE_FRAMES 개 프레임까지 묶어서 합산하고, 가장 많이 할당한 위치부터 TOP_ALLOCATION_SITES 개 만큼 문자열로 만들어 리턴
+     *
+     * 합산하는 값은 실제 할당 바이트가 아니라 JFR 이 샘플링한 이벤트의 크기(새 TLAB 크기 또는 TLAB 밖 할당 크기)이므로
+     * 위치 사이의 상대적인 비중(sampled weight)으로만 봐야 한다.
+     */
+    private static String topAllocationSites(Path jfrFile) {
+        try {
+            if (Files.size(jfrFile) == 0) {
+                return "";
+            }
+            Map<String, Long> weightBySite = new HashMap<>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(jfrFile)) {
+                if (event.getStackTrace() == null || event.getStackTrace().getFrames().isEmpty()) {
+                    continue;
+                }
+                long weight = event.hasField("tlabSize") ? event.getLong("tlabSize") : event.getLong("allocationSize");
+                weightBySite.merge(allocationSite(event.getStackTrace().getFrames()), weight, Long::sum);
+            }
+            return weightBySite.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                    .limit(TOP_ALLOCATION_SITES)
+                    .map(entry -> "  sampled weight " + entry.getValue() + entry.getKey())
+                    .collect(Collectors.joining("\n", "\n상위 할당 위치 (JFR 샘플 기준 상대 비중):\n", ""));
+        } catch (IOException e) {
+            return "\n(JFR 기록을 읽지 못했습니다: " + e.getMessage() + ")";
+        }
+    }
+
+    /** JDK 내부가 아닌 첫 프레임부터 SITE_FRAMES 개 프레임, 모두 JDK 프레임이면 맨 위 프레임부터 */
+    private static String allocationSite(List<RecordedFrame> frames) {
+        int first = 0;
+        for (int i = 0; i < frames.size(); i++) {
+            String type = frames.get(i).getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                first = i;
+                break;
+            }
+        }
+        StringBuilder site = new StringBuilder();
+        for (int i = first; i < Math.min(frames.size(), first + SITE_FRAMES); i++) {
+            RecordedFrame frame = frames.get(i);
+            site.append("\n      at ").append(frame.getMethod().getType().getName())
+                    .append('.').append(frame.getMethod().getName())
+                    .append(':').append(frame.getLineNumber());
+        }
+        return site.toString();
+    }
+}
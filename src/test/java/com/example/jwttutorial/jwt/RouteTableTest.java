@@ -0,0 +1,125 @@
+package com.example.jwttutorial.jwt;
+
+import com.example.jwttutorial.jwt.RouteTable.Access;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * RouteTable 의 세그먼트 매칭 규칙 테스트
+ * SecurityRouteConfig 와 같은 표로 실제 경로들을 확인하고, 구체적인 세그먼트 > "*" > "**" 우선순위를 확인한다.
+ */
+class RouteTableTest {
+
+    /** SecurityRouteConfig 와 같은 구성 */
+    private final RouteTable routeTable = RouteTable.builder()
+            .route(Access.IGNORED, "/h2-console/**", "/favicon.ico", "/error")
+            .route(Access.PUBLIC, "/api/hello", "/api/authenticate", "/api/signup")
+            .otherwise(Access.AUTHENTICATED)
+            .build();
+
+    @Test
+    void securityRoutes() {
+        assertThat(routeTable.lookup("/api/hello")).isEqualTo(Access.PUBLIC);
+        assertThat(routeTable.lookup("/api/authenticate")).isEqualTo(Access.PUBLIC);
+        assertThat(routeTable.lookup("/api/signup")).isEqualTo(Access.PUBLIC);
+        assertThat(routeTable.lookup("/favicon.ico")).isEqualTo(Access.IGNORED);
+        assertThat(routeTable.lookup("/api/user")).isEqualTo(Access.AUTHENTICATED);
+        assertThat(routeTable.lookup("/api/user/admin")).isEqualTo(Access.AUTHENTICATED);
+    }
+
+    @Test
+    void anyPathMatchesItsOwnPrefix() {
+        assertThat(routeTable.lookup("/h2-console")).isEqualTo(Access.IGNORED);
+        assertThat(routeTable.lookup("/h2-console/")).isEqualTo(Access.IGNORED);
+        assertThat(routeTable.lookup("/h2-console/login.do")).isEqualTo(Access.IGNORED);
+        assertThat(routeTable.lookup("/h2-console/a/b/c")).isEqualTo(Access.IGNORED);
+        assertThat(routeTable.lookup("/h2-consolex")).isEqualTo(Access.AUTHENTICATED);
+    }
+
+    @Test
+    void longerPathThanPublicRouteIsAuthenticated() {
+        assertThat(routeTable.lookup("/api/hello/x")).isEqualTo(Access.AUTHENTICATED);
+        assertThat(routeTable.lookup("/api")).isEqualTo(Access.AUTHENTICATED);
+    }
+
+    @Test
+    void rootAndSlashes() {
+        assertThat(routeTable.lookup("")).isEqualTo(Access.AUTHENTICATED);
+        assertThat(routeTable.lookup("/")).isEqualTo(Access.AUTHENTICATED);
+        assertThat(routeTable.lookup("/api/hello/")).isEqualTo(Access.PUBLIC);
+        assertThat(routeTable.lookup("//api//hello")).isEqualTo(Access.PUBLIC);
+        assertThat(routeTable.lookup("/api/hello//")).isEqualTo(Access.PUBLIC);
+    }
+
+    @Test
+    void literalWinsOverAnySegmentWinsOverAnyPath() {
+        RouteTable table = RouteTable.builder()
+                .route(Access.AUTHENTICATED, "/a/**")
+                .route(Access.IGNORED, "/a/*")
+                .route(Access.PUBLIC, "/a/x")
+                .otherwise(Access.PUBLIC)
+                .build();
+
+        assertThat(table.lookup("/a/x")).isEqualTo(Access.PUBLIC);
+        assertThat(table.lookup("/a/y")).isEqualTo(Access.IGNORED);
+        assertThat(table.lookup("/a/y/z")).isEqualTo(Access.AUTHENTICATED);
+        assertThat(table.lookup("/a")).isEqualTo(Access.AUTHENTICATED);
+        /** literal 쪽에 더 이어지는 경로가 없으면 "*", "**" 순으로 다시 찾는다. */
+        assertThat(table.lookup("/a/x/z")).isEqualTo(Access.AUTHENTICATED);
+        assertThat(table.lookup("/b")).isEqualTo(Access.PUBLIC);
+    }
+
+    @Test
+    void firstRegistrationWins() {
+        RouteTable table = RouteTable.builder()
+                .route(Access.PUBLIC, "/p")
+                .route(Access.IGNORED, "/p/")
+                .build();
+
+        assertThat(table.lookup("/p")).isEqualTo(Access.PUBLIC);
+    }
+
+    @Test
+    void anyPathOnlyAllowedAtTheEnd() {
+        assertThatThrownBy(() -> RouteTable.builder().route(Access.PUBLIC, "/a/**/b"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RouteTable.builder().route(Access.PUBLIC, "/**/b"))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        RouteTable table = RouteTable.builder()
+                .route(Access.IGNORED, "/a/**/")
+                .build();
+        assertThat(table.lookup("/a/b/c")).isEqualTo(Access.IGNORED);
+    }
+
+    @Test
+    void matcherUsesServletPathAndPathInfo() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/h2-console/login.do");
+        request.setServletPath("/h2-console");
+        request.setPathInfo("/login.do");
+
+        assertThat(routeTable.matcher(Access.IGNORED).matches(request)).isTrue();
+        assertThat(routeTable.matcher(Access.PUBLIC).matches(request)).isFalse();
+    }
+
+    @Test
+    void requestLookupIsResolvedOncePerPath() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/hello");
+        request.setServletPath("/api/hello");
+
+        assertThat(routeTable.lookup(request)).isEqualTo(Access.PUBLIC);
+        Object resolved = request.getAttribute(RouteTable.ACCESS_ATTRIBUTE);
+        assertThat(resolved).isNotNull();
+        assertThat(routeTable.matcher(Access.PUBLIC).matches(request)).isTrue();
+        assertThat(request.getAttribute(RouteTable.ACCESS_ATTRIBUTE)).isSameAs(resolved);
+
+        /** forward / error dispatch 처럼 경로가 바뀌면 다시 찾는다. */
+        request.setServletPath("/error");
+        assertThat(routeTable.lookup(request)).isEqualTo(Access.IGNORED);
+        request.setServletPath("/api/user");
+        assertThat(routeTable.lookup(request)).isEqualTo(Access.AUTHENTICATED);
+    }
+}
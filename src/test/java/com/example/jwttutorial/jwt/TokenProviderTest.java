@@ -0,0 +1,178 @@
+package com.example.jwttutorial.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * TokenProvider 의 재발급(sliding expiration) 판단 테스트
+ * window / jitter / subject 별 interval / 최초 로그인 기준 max lifetime / 비활성화 유저 처리를 확인한다.
+ */
+class TokenProviderTest {
+
+    private static final String SECRET =
+            "c2lsdmVybmluZS10ZWNoLXNwcmluZy1ib290LWp3dC10dXRvcmlhbC1zZWNyZXQtc2lsdmVybmluZS10ZWNoLXNwcmluZy1ib290LWp3dC10dXRvcmlhbC1zZWNyZXQK";
+
+    private static final long VALIDITY_SECONDS = 3600;
+    private static final long MAX_LIFETIME_SECONDS = 7 * 86400;
+
+    @Test
+    void parseClaimsReturnsNullForInvalidToken() {
+        TokenProvider tokenProvider = tokenProvider(true, VALIDITY_SECONDS * 2, 0, 0);
+
+        assertThat(tokenProvider.parseClaims("not-a-jwt")).isNull();
+        assertThat(tokenProvider.validateToken("not-a-jwt")).isFalse();
+        assertThat(tokenProvider.parseClaims(tokenProvider.createToken(authentication("admin")))).isNotNull();
+    }
+
+    @Test
+    void createTokenSetsIssuedAtAndAuthTime() {
+        TokenProvider tokenProvider = tokenProvider(true, VALIDITY_SECONDS * 2, 0, 0);
+
+        Claims claims = tokenProvider.parseClaims(tokenProvider.createToken(authentication("admin")));
+
+        assertThat(claims.getIssuedAt()).isNotNull();
+        assertThat(claims.get("auth_time", Number.class).longValue()).isEqualTo(claims.getIssuedAt().getTime() / 1000);
+    }
+
+    @Test
+    void renewalDisabled() {
+        TokenProvider tokenProvider = tokenProvider(false, VALIDITY_SECONDS * 2, 0, 0);
+
+        assertThat(tokenProvider.tryAcquireRenewal(claimsOf(tokenProvider, "admin"))).isFalse();
+    }
+
+    @Test
+    void renewsOnlyInsideWindow() {
+        /** 만료까지 1시간 남은 Token 은 window 10분 밖, window 2시간 안 */
+        TokenProvider narrowWindow = tokenProvider(true, 600, 0, 0);
+        TokenProvider wideWindow = tokenProvider(true, VALIDITY_SECONDS * 2, 0, 0);
+
+        assertThat(narrowWindow.tryAcquireRenewal(claimsOf(narrowWindow, "admin"))).isFalse();
+        assertThat(wideWindow.tryAcquireRenewal(claimsOf(wideWindow, "admin"))).isTrue();
+    }
+
+    @Test
+    void renewsOncePerSubjectWithinInterval() {
+        TokenProvider tokenProvider = tokenProvider(true, VALIDITY_SECONDS * 2, 0, 60);
+
+        assertThat(tokenProvider.tryAcquireRenewal(claimsOf(tokenProvider, "admin"))).isTrue();
+        assertThat(tokenProvider.tryAcquireRenewal(claimsOf(tokenProvider, "admin"))).isFalse();
+        /** 다른 subject 는 영향을 받지 않는다. */
+        assertThat(tokenProvider.tryAcquireRenewal(claimsOf(tokenProvider, "user"))).isTrue();
+    }
+
+    @Test
+    void renewedExpirationIsJittered() {
+        long jitterSeconds = 600;
+        TokenProvider tokenProvider = tokenProvider(true, VALIDITY_SECONDS * 2, jitterSeconds, 0);
+        Claims claims = claimsOf(tokenProvider, "admin");
+
+        for (int i = 0; i < 50; i++) {
+            long now = System.currentTimeMillis();
+            Claims renewed = tokenProvider.parseClaims(tokenProvider.renewToken(claims, user("admin", true)));
+
+            /** exp 는 초 단위로 잘리므로 1초 여유를 둔다. */
+            long expiration = renewed.getExpiration().getTime();
+            assertThat(expiration).isBetween(
+                    now + (VALIDITY_SECONDS - jitterSeconds) * 1000 - 1000,
+                    now + VALIDITY_SECONDS * 1000 + 1000);
+        }
+    }
+
+    @Test
+    void renewedTokenKeepsAuthTimeAndUsesCurrentAuthorities() {
+        TokenProvider tokenProvider = tokenProvider(true, VALIDITY_SECONDS * 2, 0, 0);
+        long authTime = System.currentTimeMillis() / 1000 - 3600;
+        Claims claims = tokenProvider.parseClaims(token("admin", authTime, VALIDITY_SECONDS));
+
+        Claims renewed = tokenProvider.parseClaims(tokenProvider.renewToken(claims, user("admin", true)));
+
+        assertThat(renewed.getSubject()).isEqualTo("admin");
+        assertThat(renewed.get("auth_time", Number.class).longValue()).isEqualTo(authTime);
+        assertThat(renewed.get("auth")).isEqualTo("ROLE_USER");
+    }
+
+    @Test
+    void refusesRenewalPastMaxLifetime() {
+        TokenProvider tokenProvider = tokenProvider(true, VALIDITY_SECONDS * 2, 0, 0);
+        long authTime = System.currentTimeMillis() / 1000 - MAX_LIFETIME_SECONDS - 60;
+
+        Claims claims = tokenProvider.parseClaims(token("admin", authTime, VALIDITY_SECONDS));
+
+        assertThat(tokenProvider.tryAcquireRenewal(claims)).isFalse();
+    }
+
+    @Test
+    void renewedExpirationDoesNotExceedMaxLifetime() {
+        TokenProvider tokenProvider = tokenProvider(true, VALIDITY_SECONDS * 2, 0, 0);
+        /** 최초 로그인 후 max lifetime 까지 10분 남은 상태 */
+        long authTime = System.currentTimeMillis() / 1000 - MAX_LIFETIME_SECONDS + 600;
+        Claims claims = tokenProvider.parseClaims(token("admin", authTime, 300));
+
+        assertThat(tokenProvider.tryAcquireRenewal(claims)).isTrue();
+        Claims renewed = tokenProvider.parseClaims(tokenProvider.renewToken(claims, user("admin", true)));
+
+        assertThat(renewed.getExpiration().getTime()).isLessThanOrEqualTo((authTime + MAX_LIFETIME_SECONDS) * 1000);
+    }
+
+    @Test
+    void refusesRenewalForInactiveOrMissingUser() {
+        TokenProvider tokenProvider = tokenProvider(true, VALIDITY_SECONDS * 2, 0, 0);
+        Claims claims = claimsOf(tokenProvider, "admin");
+
+        assertThat(tokenProvider.renewToken(claims, user("admin", false))).isNull();
+        assertThat(tokenProvider.renewToken(claims, null)).isNull();
+    }
+
+    private static TokenProvider tokenProvider(boolean enabled, long windowSeconds, long jitterSeconds, long intervalSeconds) {
+        TokenProvider tokenProvider = new TokenProvider(SECRET, VALIDITY_SECONDS, enabled,
+                windowSeconds, jitterSeconds, intervalSeconds, MAX_LIFETIME_SECONDS);
+        tokenProvider.afterPropertiesSet();
+        return tokenProvider;
+    }
+
+    private static Claims claimsOf(TokenProvider tokenProvider, String username) {
+        return tokenProvider.parseClaims(tokenProvider.createToken(authentication(username)));
+    }
+
+    /** auth_time 을 지정해서 createToken 과 같은 형태의 Token 을 만든다. */
+    private static String token(String username, long authTimeSeconds, long validitySeconds) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setSubject(username)
+                .claim("auth", "ROLE_USER,ROLE_ADMIN")
+                .claim("auth_time", authTimeSeconds)
+                .setIssuedAt(new Date(now))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)), SignatureAlgorithm.HS512)
+                .setExpiration(new Date(now + validitySeconds * 1000))
+                .compact();
+    }
+
+    private static Authentication authentication(String username) {
+        return new UsernamePasswordAuthenticationToken(username, null, Arrays.asList(
+                new SimpleGrantedAuthority("ROLE_USER"),
+                new SimpleGrantedAuthority("ROLE_ADMIN")));
+    }
+
+    private static UserDetails user(String username, boolean enabled) {
+        return User.withUsername(username)
+                .password("")
+                .authorities("ROLE_USER")
+                .disabled(!enabled)
+                .build();
+    }
+}
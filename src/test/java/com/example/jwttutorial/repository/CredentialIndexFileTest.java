@@ -0,0 +1,187 @@
+package com.example.jwttutorial.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * CredentialIndexFile 의 저장 / 조회 테스트
+ * 덮어쓰기, linear probing 충돌, load factor 제한, copyTo, 권한 수 제한, 파일 권한을 확인한다.
+ */
+class CredentialIndexFileTest {
+
+    private static final List<String> AUTHORITIES = Arrays.asList("ROLE_ADMIN", "ROLE_USER");
+    private static final String PASSWORD = "$2a$08$lDnHPz7eUkSi6ao14Twuau08mzhWrL4kyZGGU5xfiGALO/Vxd5DOi";
+
+    /** expectedEntries 가 작으면 최소 capacity 16, MAX_LOAD_FACTOR 0.7 이므로 11 개까지 저장 */
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_ENTRIES = 11;
+
+    @TempDir
+    Path directory;
+
+    private final List<CredentialIndexFile> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        opened.forEach(CredentialIndexFile::close);
+    }
+
+    @Test
+    void putAndFind() throws IOException {
+        CredentialIndexFile file = create("index.bin", 1);
+
+        assertThat(file.put("admin", PASSWORD, true, AUTHORITIES)).isTrue();
+
+        int slot = file.find("admin");
+        assertThat(slot).isNotNegative();
+        assertThat(file.password(slot)).isEqualTo(PASSWORD);
+        assertThat(file.isActivated(slot)).isTrue();
+        assertThat(file.authorityMask(slot)).isEqualTo(0b11);
+        assertThat(file.size()).isEqualTo(1);
+        assertThat(file.find("user")).isEqualTo(-1);
+        assertThat(file.find("")).isEqualTo(-1);
+    }
+
+    @Test
+    void putOverwritesExistingEntry() throws IOException {
+        CredentialIndexFile file = create("index.bin", 1);
+        file.put("user", PASSWORD, true, Collections.singleton("ROLE_USER"));
+
+        assertThat(file.put("user", "changed", false, Collections.singleton("ROLE_ADMIN"))).isTrue();
+
+        int slot = file.find("user");
+        assertThat(file.password(slot)).isEqualTo("changed");
+        assertThat(file.isActivated(slot)).isFalse();
+        assertThat(file.authorityMask(slot)).isEqualTo(0b01);
+        assertThat(file.size()).isEqualTo(1);
+    }
+
+    @Test
+    void linearProbingKeepsCollidingUsernamesApart() throws IOException {
+        /** 같은 home slot 에 모이는 username 3 개를 찾아서 저장 */
+        int homeSlot = CredentialIndexFile.hash("user0") & (MIN_CAPACITY - 1);
+        List<String> colliding = IntStream.range(0, 10_000)
+                .mapToObj(i -> "user" + i)
+                .filter(username -> (CredentialIndexFile.hash(username) & (MIN_CAPACITY - 1)) == homeSlot)
+                .limit(3)
+                .collect(Collectors.toList());
+        assertThat(colliding).hasSize(3);
+
+        CredentialIndexFile file = create("index.bin", 1);
+        for (String username : colliding) {
+            assertThat(file.put(username, username + "-password", true, Collections.singleton("ROLE_USER"))).isTrue();
+        }
+
+        List<Integer> slots = colliding.stream().map(file::find).collect(Collectors.toList());
+        assertThat(slots).doesNotContain(-1).doesNotHaveDuplicates();
+        for (String username : colliding) {
+            assertThat(file.password(file.find(username))).isEqualTo(username + "-password");
+        }
+
+        /** 충돌한 항목 중 가운데를 덮어써도 나머지는 그대로 */
+        file.put(colliding.get(1), "changed", true, Collections.singleton("ROLE_USER"));
+        assertThat(file.password(file.find(colliding.get(1)))).isEqualTo("changed");
+        assertThat(file.password(file.find(colliding.get(2)))).isEqualTo(colliding.get(2) + "-password");
+        assertThat(file.size()).isEqualTo(3);
+    }
+
+    @Test
+    void loadFactorGuardRejectsNewEntries() throws IOException {
+        CredentialIndexFile file = create("index.bin", 1);
+        for (int i = 0; i < MAX_ENTRIES; i++) {
+            assertThat(file.put("user" + i, PASSWORD, true, Collections.emptyList())).isTrue();
+        }
+
+        assertThat(file.hasRoomFor(1)).isFalse();
+        assertThat(file.put("one-more", PASSWORD, true, Collections.emptyList())).isFalse();
+        assertThat(file.find("one-more")).isEqualTo(-1);
+        /** 이미 있는 항목은 덮어쓸 수 있다. */
+        assertThat(file.put("user0", "changed", true, Collections.emptyList())).isTrue();
+        assertThat(file.size()).isEqualTo(MAX_ENTRIES);
+    }
+
+    @Test
+    void rejectsEntriesThatDoNotFitSlot() throws IOException {
+        CredentialIndexFile file = create("index.bin", 1);
+
+        assertThat(file.put("", PASSWORD, true, Collections.emptyList())).isFalse();
+        assertThat(file.put(repeat('u', CredentialIndexFile.MAX_USERNAME_LENGTH + 1), PASSWORD, true, Collections.emptyList()))
+                .isFalse();
+        assertThat(file.put("user", repeat('p', CredentialIndexFile.MAX_PASSWORD_LENGTH + 1), true, Collections.emptyList()))
+                .isFalse();
+        assertThat(file.put("user", PASSWORD, true, Collections.singleton("ROLE_UNKNOWN"))).isFalse();
+        assertThat(file.size()).isZero();
+    }
+
+    @Test
+    void copyToIsIndependentOfSource() throws IOException {
+        CredentialIndexFile source = create("source.bin", 1);
+        source.put("admin", PASSWORD, true, AUTHORITIES);
+
+        CredentialIndexFile copy = source.copyTo(directory.resolve("copy.bin"));
+        opened.add(copy);
+        copy.put("user", PASSWORD, true, Collections.singleton("ROLE_USER"));
+        copy.put("admin", "changed", true, AUTHORITIES);
+
+        assertThat(copy.getAuthorityNames()).isEqualTo(AUTHORITIES);
+        assertThat(copy.size()).isEqualTo(2);
+        assertThat(copy.password(copy.find("admin"))).isEqualTo("changed");
+        assertThat(source.size()).isEqualTo(1);
+        assertThat(source.find("user")).isEqualTo(-1);
+        assertThat(source.password(source.find("admin"))).isEqualTo(PASSWORD);
+    }
+
+    @Test
+    void rejectsMoreThan64Authorities() {
+        List<String> authorities = IntStream.rangeClosed(0, CredentialIndexFile.MAX_AUTHORITIES)
+                .mapToObj(i -> "ROLE_" + i)
+                .collect(Collectors.toList());
+
+        assertThatThrownBy(() -> CredentialIndexFile.create(directory.resolve("index.bin"), 1, authorities))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void filesAreOwnerOnly() throws IOException {
+        if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            return;
+        }
+        Path indexDirectory = directory.resolve("credential-index");
+        CredentialIndexFile.createDirectories(indexDirectory);
+        CredentialIndexFile file = create("credential-index/index.bin", 1);
+        CredentialIndexFile copy = file.copyTo(indexDirectory.resolve("copy.bin"));
+        opened.add(copy);
+
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(indexDirectory))).isEqualTo("rwx------");
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(file.getPath()))).isEqualTo("rw-------");
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(copy.getPath()))).isEqualTo("rw-------");
+    }
+
+    private CredentialIndexFile create(String name, int expectedEntries) throws IOException {
+        CredentialIndexFile file = CredentialIndexFile.create(directory.resolve(name), expectedEntries, AUTHORITIES);
+        opened.add(file);
+        return file;
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.jwttutorial.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * CredentialIndexService 의 overlay / compaction / rebuild / 파일 해제 테스트
+ * data.sql 과 같은 admin, user 두 유저를 in-memory H2 에 넣고 index 를 만든 뒤,
+ * change log 이벤트를 직접 넣고 refresh 를 호출해서 overlay 와 index 파일이 어떻게 바뀌는지 확인한다.
+ */
+class CredentialIndexServiceTest {
+
+    private static final String ADMIN_PASSWORD = "$2a$08$lDnHPz7eUkSi6ao14Twuau08mzhWrL4kyZGGU5xfiGALO/Vxd5DOi";
+    private static final String USER_PASSWORD = "$2a$08$UkVvwpULis18S19S5pZFn.YHPZt3oaqHZnDwqbCW9pft6uFtkXKDC";
+
+    /** 2 명으로 만든 index 파일은 최소 capacity 16, load factor 0.7 이므로 11 명까지 저장 */
+    private static final int MAX_ENTRIES = 11;
+
+    @TempDir
+    Path directory;
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(
+            new DriverManagerDataSource("jdbc:h2:mem:credential-index-service-test;DB_CLOSE_DELAY=-1", "sa", ""));
+
+    private CredentialIndexService service;
+    private long nextUserId = 1;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE TABLE USER (USER_ID BIGINT PRIMARY KEY, USERNAME VARCHAR(50), " +
+                "PASSWORD VARCHAR(100), NICKNAME VARCHAR(50), ACTIVATED BOOLEAN)");
+        jdbcTemplate.execute("CREATE TABLE AUTHORITY (AUTHORITY_NAME VARCHAR(50) PRIMARY KEY)");
+        jdbcTemplate.execute("CREATE TABLE USER_AUTHORITY (USER_ID BIGINT, AUTHORITY_NAME VARCHAR(50))");
+        jdbcTemplate.update("INSERT INTO AUTHORITY (AUTHORITY_NAME) VALUES ('ROLE_USER'), ('ROLE_ADMIN')");
+
+        insertUser("admin", ADMIN_PASSWORD, true, "ROLE_USER", "ROLE_ADMIN");
+        insertUser("user", USER_PASSWORD, true, "ROLE_USER");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.close();
+        }
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void overlayIsServedBeforeIndexFile() throws IOException {
+        service = initialize(256);
+        Path indexed = service.currentMapping().getPath();
+        assertThat(service.loadUserByUsername("admin").getPassword()).isEqualTo(ADMIN_PASSWORD);
+
+        service.onCredentialChanged(event("admin", "changed", true, "ROLE_USER"));
+        service.refresh();
+
+        UserDetails admin = service.loadUserByUsername("admin");
+        assertThat(admin.getPassword()).isEqualTo("changed");
+        assertThat(authorityNames(admin)).containsExactly("ROLE_USER");
+        /** compact-threshold 아래이므로 index 파일은 그대로 */
+        assertThat(service.currentMapping().getPath()).isEqualTo(indexed);
+        assertThat(service.overlaySize()).isEqualTo(1);
+        assertThat(service.loadUserByUsername("unknown")).isNull();
+    }
+
+    @Test
+    void compactsAtThresholdAndKeepsEntriesThatDoNotFit() throws IOException {
+        service = initialize(3);
+        Path indexed = service.currentMapping().getPath();
+        String tooLong = repeat('u', 51);
+
+        service.onCredentialChanged(event("new-user-1", "password-1", true, "ROLE_USER"));
+        service.onCredentialChanged(event(tooLong, "password-long", true, "ROLE_USER"));
+        service.refresh();
+        assertThat(service.overlaySize()).isEqualTo(2);
+        assertThat(service.currentMapping().getPath()).isEqualTo(indexed);
+
+        service.onCredentialChanged(event("new-user-2", "password-2", true, "ROLE_USER"));
+        service.refresh();
+
+        /** 새 파일에 합쳐지고, 읽는 요청이 없던 이전 파일은 바로 삭제 */
+        Path compacted = service.currentMapping().getPath();
+        assertThat(compacted).isNotEqualTo(indexed);
+        assertThat(indexed).doesNotExist();
+        assertThat(compacted).exists();
+
+        /** slot 에 맞지 않는 username 은 overlay 에 남는다. */
+        assertThat(service.overlaySize()).isEqualTo(1);
+        assertThat(service.loadUserByUsername(tooLong).getPassword()).isEqualTo("password-long");
+        assertThat(service.loadUserByUsername("new-user-1").getPassword()).isEqualTo("password-1");
+        assertThat(service.loadUserByUsername("new-user-2").getPassword()).isEqualTo("password-2");
+        assertThat(service.loadUserByUsername("admin").getPassword()).isEqualTo(ADMIN_PASSWORD);
+    }
+
+    @Test
+    void rebuildsFromDatabaseWhenIndexFileIsFull() throws IOException {
+        service = initialize(MAX_ENTRIES);
+        Path indexed = service.currentMapping().getPath();
+
+        for (int i = 0; i < MAX_ENTRIES; i++) {
+            insertUser("new-user-" + i, "password-" + i, true, "ROLE_USER");
+            service.onCredentialChanged(event("new-user-" + i, "password-" + i, true, "ROLE_USER"));
+        }
+        /** change log 를 거치지 않은 유저는 DB 에서 다시 만들 때만 index 에 들어간다. */
+        insertUser("db-only", "password-db", true, "ROLE_USER");
+        service.refresh();
+
+        assertThat(service.currentMapping().getPath()).isNotEqualTo(indexed);
+        assertThat(indexed).doesNotExist();
+        assertThat(service.overlaySize()).isZero();
+        assertThat(service.loadUserByUsername("db-only").getPassword()).isEqualTo("password-db");
+        for (int i = 0; i < MAX_ENTRIES; i++) {
+            assertThat(service.loadUserByUsername("new-user-" + i).getPassword()).isEqualTo("password-" + i);
+        }
+    }
+
+    @Test
+    void swappedOutFileIsReleasedAfterLastReader() throws IOException {
+        service = initialize(256);
+        CredentialIndexService.Mapping reading = service.currentMapping();
+        Path indexed = reading.getPath();
+        assertThat(reading.acquire()).isTrue();
+
+        service.rebuild();
+
+        /** 읽고 있는 요청이 있으므로 교체되어도 mapping 과 파일은 남아 있다. */
+        assertThat(service.currentMapping()).isNotSameAs(reading);
+        assertThat(indexed).exists();
+        assertThat(service.loadUserByUsername("admin").getPassword()).isEqualTo(ADMIN_PASSWORD);
+
+        reading.release();
+
+        assertThat(indexed).doesNotExist();
+        assertThat(reading.acquire()).isFalse();
+    }
+
+    @Test
+    void deactivatedUserThrows() throws IOException {
+        insertUser("deactivated", ADMIN_PASSWORD, false, "ROLE_USER");
+        service = initialize(256);
+
+        assertThatThrownBy(() -> service.loadUserByUsername("deactivated"))
+                .isInstanceOf(DisabledException.class);
+
+        /** overlay 에서 비활성화된 경우도 같다. */
+        service.onCredentialChanged(event("user", USER_PASSWORD, false, "ROLE_USER"));
+        service.refresh();
+        assertThatThrownBy(() -> service.loadUserByUsername("user"))
+                .isInstanceOf(DisabledException.class);
+    }
+
+    @Test
+    void staleFilesAreDeletedOnInitializeAndCurrentFileOnClose() throws IOException {
+        Path stale = Files.createFile(directory.resolve("credential-index-7.bin"));
+        Path other = Files.createFile(directory.resolve("other.bin"));
+
+        service = initialize(256);
+        Path indexed = service.currentMapping().getPath();
+        assertThat(stale).doesNotExist();
+        assertThat(other).exists();
+
+        service.close();
+
+        assertThat(indexed).doesNotExist();
+        assertThat(service.currentMapping()).isNull();
+        assertThat(service.loadUserByUsername("admin")).isNull();
+    }
+
+    private CredentialIndexService initialize(int compactThreshold) throws IOException {
+        CredentialIndexService created = new CredentialIndexService(jdbcTemplate, directory.toString(), compactThreshold);
+        created.initialize();
+        return created;
+    }
+
+    private void insertUser(String username, String password, boolean activated, String... authorityNames) {
+        long userId = nextUserId++;
+        jdbcTemplate.update("INSERT INTO USER (USER_ID, USERNAME, PASSWORD, NICKNAME, ACTIVATED) VALUES (?, ?, ?, ?, ?)",
+                userId, username, password, username, activated);
+        for (String authorityName : authorityNames) {
+            jdbcTemplate.update("INSERT INTO USER_AUTHORITY (USER_ID, AUTHORITY_NAME) VALUES (?, ?)", userId, authorityName);
+        }
+    }
+
+    private static CredentialChangedEvent event(String username, String password, boolean activated, String... authorityNames) {
+        Set<String> authorities = new HashSet<>(Arrays.asList(authorityNames));
+        return new CredentialChangedEvent(username, password, activated, Collections.unmodifiableSet(authorities));
+    }
+
+    private static List<String> authorityNames(UserDetails userDetails) {
+        return userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList());
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
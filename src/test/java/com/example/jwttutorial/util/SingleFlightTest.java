@@ -0,0 +1,166 @@
+package com.example.jwttutorial.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * SingleFlight 의 요청 합치기 테스트
+ * leader 의 loader 를 latch 로 붙잡아 둔 상태에서 같은 key 로 요청을 보내고, 메트릭으로 합쳐진 수를 확인한다.
+ */
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+    private static final String KEY = "admin";
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        SingleFlight<String, String> singleFlight = singleFlight(3000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loaderCalls = new AtomicInteger();
+
+        List<Future<String>> results = callConcurrently(singleFlight, started, release, () -> {
+            loaderCalls.incrementAndGet();
+            return "loaded";
+        });
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("loaded");
+        }
+        assertThat(loaderCalls.get()).isEqualTo(1);
+        assertThat(count("single.flight.loads")).isEqualTo(1);
+        assertThat(count("single.flight.coalesced")).isEqualTo(CALLERS - 1);
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void leaderExceptionReachesWaiters() throws Exception {
+        SingleFlight<String, String> singleFlight = singleFlight(3000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("조회 실패");
+
+        List<Future<String>> results = callConcurrently(singleFlight, started, release, () -> {
+            throw failure;
+        });
+
+        for (Future<String> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCause(failure);
+        }
+        assertThat(count("single.flight.failures")).isEqualTo(1);
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void waiterTimesOut() throws Exception {
+        SingleFlight<String, String> singleFlight = singleFlight(50);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.load(KEY, blockingLoader(started, release, () -> "loaded")));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> singleFlight.load(KEY, () -> "not-called"))
+                .isInstanceOf(SingleFlight.SingleFlightTimeoutException.class);
+        assertThat(count("single.flight.timeouts")).isEqualTo(1);
+
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("loaded");
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void inFlightEntryIsRemovedAfterLoad() {
+        SingleFlight<String, String> singleFlight = singleFlight(3000);
+        AtomicInteger loaderCalls = new AtomicInteger();
+
+        assertThat(singleFlight.load(KEY, () -> "first-" + loaderCalls.incrementAndGet())).isEqualTo("first-1");
+        assertThat(inFlight()).isZero();
+
+        /** 결과를 캐시하지 않으므로 다음 요청은 다시 loader 를 실행한다. */
+        assertThat(singleFlight.load(KEY, () -> "second-" + loaderCalls.incrementAndGet())).isEqualTo("second-2");
+        assertThatThrownBy(() -> singleFlight.load(KEY, () -> {
+            throw new IllegalStateException("조회 실패");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(inFlight()).isZero();
+        assertThat(count("single.flight.loads")).isEqualTo(3);
+        assertThat(count("single.flight.coalesced")).isZero();
+    }
+
+    private SingleFlight<String, String> singleFlight(long timeoutMillis) {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>("test", timeoutMillis);
+        singleFlight.bindTo(registry);
+        return singleFlight;
+    }
+
+    /**
+     * leader 의 loader 가 시작된 뒤 나머지 CALLERS - 1 개의 요청을 보내고,
+     * 모두 진행중인 조회에 합쳐진 것을 확인한 다음 loader 를 끝낸다.
+     */
+    private List<Future<String>> callConcurrently(SingleFlight<String, String> singleFlight,
+                                                  CountDownLatch started, CountDownLatch release,
+                                                  Supplier<String> loader) throws InterruptedException {
+        List<Future<String>> results = new ArrayList<>();
+        results.add(executor.submit(() -> singleFlight.load(KEY, blockingLoader(started, release, loader))));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        for (int i = 1; i < CALLERS; i++) {
+            results.add(executor.submit(() -> singleFlight.load(KEY, () -> "not-called")));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count("single.flight.coalesced") < CALLERS - 1 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(count("single.flight.coalesced")).isEqualTo(CALLERS - 1);
+
+        release.countDown();
+        return results;
+    }
+
+    private static Supplier<String> blockingLoader(CountDownLatch started, CountDownLatch release, Supplier<String> loader) {
+        return () -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return loader.get();
+        };
+    }
+
+    private double count(String name) {
+        return registry.get(name).tag("name", "test").functionCounter().count();
+    }
+
+    private double inFlight() {
+        return registry.get("single.flight.in.flight").tag("name", "test").gauge().value();
+    }
+}